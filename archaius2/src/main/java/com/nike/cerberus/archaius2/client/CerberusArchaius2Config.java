@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius2.client;
+
+import com.netflix.archaius.api.Config;
+import com.netflix.archaius.config.AbstractConfig;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import com.nike.cerberus.secrets.CerberusSnapshot;
+import com.nike.cerberus.secrets.CerberusSnapshotListener;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Archaius 2 {@link Config} layer backed by a Cerberus secret source.
+ *
+ * <p>The source's loader decides how paths are traversed and keyed; every refresh publishes an
+ * immutable snapshot which this config swaps in through a single atomic reference, ignoring
+ * snapshots older than the one it serves. Reads never lock: they look up the key in whichever
+ * snapshot is current. Config listeners are notified whenever a refresh changes the loaded values.
+ *
+ * <pre>{@code
+ * CerberusArchaius2Config cerberusConfig = new CerberusArchaius2Config(
+ *         new CerberusSecretSource(cerberusClient, new NamespacedSecretLoader(), "app/demo/"));
+ * cerberusConfig.startPolling(scheduler, 1, TimeUnit.HOURS);
+ * compositeConfig.addConfig("cerberus", cerberusConfig);
+ * }</pre>
+ */
+public class CerberusArchaius2Config extends AbstractConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusArchaius2Config.class);
+
+    private final CerberusSecretSource source;
+
+    private final CerberusSnapshotListener listener = this::onSnapshot;
+
+    private final AtomicReference<CerberusSnapshot> current = new AtomicReference<>();
+
+    private ScheduledFuture<?> pollingTask;
+
+    /**
+     * Constructor that loads the source if it has not been refreshed yet. When the source has
+     * critical paths, only those are loaded before returning and the others follow in the
+     * background.
+     *
+     * @param source Cerberus secret source. May not be null.
+     * @throws IllegalArgumentException if source is null
+     */
+    public CerberusArchaius2Config(final CerberusSecretSource source) {
+        super();
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        this.source = source;
+        source.addSnapshotListener(listener);
+        final CerberusSnapshot loaded = source.getCurrentSnapshot();
+        if (loaded != null) {
+            swap(loaded);
+        } else if (source.hasCriticalPaths()) {
+            swap(source.refreshCritical());
+            source.refreshInBackground();
+        } else {
+            swap(source.refresh());
+        }
+    }
+
+    /**
+     * Refreshes the source on the given scheduler at a fixed delay.
+     *
+     * @param scheduler Scheduler running the refreshes
+     * @param interval Delay between the end of one refresh and the start of the next
+     * @param unit Unit of the interval
+     */
+    public synchronized void startPolling(
+            final ScheduledExecutorService scheduler, final long interval, final TimeUnit unit) {
+        if (pollingTask != null) {
+            throw new IllegalStateException("Polling has already been started");
+        }
+        pollingTask = scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, unit);
+    }
+
+    /** Stops polling and detaches this config from the source. */
+    public synchronized void stopPolling() {
+        if (pollingTask != null) {
+            pollingTask.cancel(false);
+            pollingTask = null;
+        }
+        source.removeSnapshotListener(listener);
+    }
+
+    public CerberusSecretSource getSource() {
+        return source;
+    }
+
+    private void refresh() {
+        try {
+            source.refresh();
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh Cerberus configuration, keeping current values", e);
+        }
+    }
+
+    private void onSnapshot(final CerberusSnapshot snapshot) {
+        if (swap(snapshot)) {
+            notifyConfigUpdated(this);
+        }
+    }
+
+    /**
+     * Serves a snapshot unless a newer one is already served, as listeners may be notified out of
+     * order.
+     *
+     * @return true if the snapshot is now served
+     */
+    private boolean swap(final CerberusSnapshot snapshot) {
+        return current.accumulateAndGet(
+                        snapshot,
+                        (served, next) ->
+                                served == null || next.getVersion() > served.getVersion()
+                                        ? next
+                                        : served)
+                == snapshot;
+    }
+
+    private Map<String, Object> values() {
+        return current.get().getValues();
+    }
+
+    @Override
+    public Object getRawProperty(final String key) {
+        return values().get(key);
+    }
+
+    @Override
+    public boolean containsKey(final String key) {
+        return values().containsKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return values().isEmpty();
+    }
+
+    @Override
+    public Iterator<String> getKeys() {
+        return Collections.unmodifiableSet(values().keySet()).iterator();
+    }
+
+    /**
+     * Visits every property of the current snapshot.
+     *
+     * @param consumer Receives each property name and value
+     */
+    @Override
+    public void forEachProperty(final BiConsumer<String, Object> consumer) {
+        values().forEach(consumer);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius2.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import com.nike.cerberus.secrets.CerberusSnapshot;
+import com.nike.cerberus.secrets.CerberusSnapshotListener;
+import com.nike.cerberus.secrets.NamespacedSecretLoader;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusArchaius2Config */
+public class CerberusArchaius2ConfigTest {
+
+    private static final String PATH = "app/foobinator/";
+
+    private static final String LEAF = "config";
+
+    private static final String KEY = "app.foobinator.config.jdbcPassword";
+
+    private CerberusClient cerberusClient;
+
+    private CerberusSecretSource source;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        when(cerberusClient.list(PATH))
+                .thenReturn(new CerberusListResponse().setKeys(Collections.singletonList(LEAF)));
+        givenPassword("password123");
+        source = new CerberusSecretSource(cerberusClient, new NamespacedSecretLoader(), PATH);
+    }
+
+    @Test
+    public void config_is_loaded_on_creation() {
+        final CerberusArchaius2Config subject = new CerberusArchaius2Config(source);
+
+        assertThat(subject.isEmpty()).isFalse();
+        assertThat(subject.containsKey(KEY)).isTrue();
+        assertThat(subject.getRawProperty(KEY)).isEqualTo("password123");
+        assertThat(subject.getKeys()).containsOnly(KEY);
+    }
+
+    @Test
+    public void existing_snapshot_is_reused() {
+        source.refresh();
+
+        final CerberusArchaius2Config subject = new CerberusArchaius2Config(source);
+
+        assertThat(subject.getRawProperty(KEY)).isEqualTo("password123");
+        verify(cerberusClient, times(1)).read(PATH + LEAF);
+    }
+
+    @Test
+    public void refreshed_snapshot_is_swapped_in() {
+        final CerberusArchaius2Config subject = new CerberusArchaius2Config(source);
+
+        givenPassword("rotated");
+        source.refresh();
+
+        assertThat(subject.getRawProperty(KEY)).isEqualTo("rotated");
+    }
+
+    @Test
+    public void stopped_config_is_detached_from_source() {
+        final CerberusArchaius2Config subject = new CerberusArchaius2Config(source);
+        subject.stopPolling();
+
+        givenPassword("rotated");
+        source.refresh();
+
+        assertThat(subject.getRawProperty(KEY)).isEqualTo("password123");
+    }
+
+    @Test
+    public void older_snapshot_is_ignored() {
+        final CerberusSnapshot older = source.refresh();
+        givenPassword("rotated");
+        final CerberusSnapshot newer = source.refresh();
+        final CerberusSecretSource delayed = mock(CerberusSecretSource.class);
+        final CerberusSnapshotListener[] listener = new CerberusSnapshotListener[1];
+        doAnswer(invocation -> listener[0] = invocation.getArgument(0))
+                .when(delayed)
+                .addSnapshotListener(any());
+        when(delayed.getCurrentSnapshot()).thenReturn(newer);
+
+        final CerberusArchaius2Config subject = new CerberusArchaius2Config(delayed);
+        listener[0].onSnapshot(older);
+
+        assertThat(subject.getRawProperty(KEY)).isEqualTo("rotated");
+    }
+
+    @Test
+    public void initial_snapshot_does_not_replace_newer_notification() {
+        final CerberusSnapshot older = source.refresh();
+        givenPassword("rotated");
+        final CerberusSnapshot newer = source.refresh();
+        final CerberusSecretSource delayed = mock(CerberusSecretSource.class);
+        doAnswer(
+                        invocation -> {
+                            invocation.<CerberusSnapshotListener>getArgument(0).onSnapshot(newer);
+                            return null;
+                        })
+                .when(delayed)
+                .addSnapshotListener(any());
+        when(delayed.hasCriticalPaths()).thenReturn(true);
+        when(delayed.refreshCritical()).thenReturn(older);
+
+        final CerberusArchaius2Config subject = new CerberusArchaius2Config(delayed);
+
+        assertThat(subject.getRawProperty(KEY)).isEqualTo("rotated");
+    }
+
+    private void givenPassword(String password) {
+        when(cerberusClient.read(PATH + LEAF))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("jdbcPassword", password)));
+    }
+}
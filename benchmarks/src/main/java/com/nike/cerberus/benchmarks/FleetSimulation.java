@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.benchmarks;
+
+import com.netflix.config.AbstractPollingScheduler;
+import com.netflix.config.DynamicConfiguration;
+import com.netflix.config.FixedDelayPollingScheduler;
+import com.nike.cerberus.archaius.client.provider.BaseCerberusConfigurationSource;
+import com.nike.cerberus.archaius.client.provider.CerberusConfigurationSource;
+import com.nike.cerberus.archaius.client.provider.CerberusPollingScheduler;
+import com.nike.cerberus.archaius.client.provider.NamespacedCerberusConfigurationSource;
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.CerberusClientFactory;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import com.nike.cerberus.secrets.CerberusPollingService;
+import com.nike.cerberus.secrets.CerberusSpan;
+import com.nike.cerberus.secrets.CerberusTracer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a fleet of application instances polling a local stub Cerberus.
+ *
+ * <p>Every simulated instance owns its own Cerberus client and configuration source and polls it
+ * through Archaius' {@link DynamicConfiguration}, using either one {@link
+ * FixedDelayPollingScheduler} per instance, as in the README, or a shared {@link
+ * CerberusPollingService}. Instances start at random offsets within the startup spread. At the end
+ * the server side requests per second, the thundering herd peak and the client side poll latency
+ * distribution are printed.
+ *
+ * <p>Settings are read from system properties, e.g.
+ *
+ * <pre>
+ * ./gradlew :cerberus-archaius-client-benchmarks:simulate \
+ *         -Dsimulation.instances=2000 -Dsimulation.source=namespaced -Dsimulation.depth=2
+ * </pre>
+ */
+public final class FleetSimulation {
+
+    private final int instances = Integer.getInteger("simulation.instances", 500);
+
+    private final String sourceType = System.getProperty("simulation.source", "namespaced");
+
+    private final String schedulerType = System.getProperty("simulation.scheduler", "fixed");
+
+    private final int pollingThreads = Integer.getInteger("simulation.pollingThreads", 4);
+
+    private final int intervalSeconds = Integer.getInteger("simulation.intervalSeconds", 10);
+
+    private final int durationSeconds = Integer.getInteger("simulation.durationSeconds", 60);
+
+    private final int startupSpreadSeconds =
+            Integer.getInteger("simulation.startupSpreadSeconds", 5);
+
+    private final int depth = Integer.getInteger("simulation.depth", 1);
+
+    private final int fanout = Integer.getInteger("simulation.fanout", 3);
+
+    private final int leaves = Integer.getInteger("simulation.leaves", 2);
+
+    private final int keys = Integer.getInteger("simulation.keys", 10);
+
+    private final int responseDelayMillis = Integer.getInteger("simulation.responseDelayMillis", 5);
+
+    private final int serverThreads = Integer.getInteger("simulation.serverThreads", 32);
+
+    private final ConcurrentLinkedQueue<Long> pollNanos = new ConcurrentLinkedQueue<>();
+
+    private final List<AbstractPollingScheduler> schedulers =
+            Collections.synchronizedList(new ArrayList<>());
+
+    private FleetSimulation() {}
+
+    public static void main(final String[] args) throws Exception {
+        new FleetSimulation().run();
+    }
+
+    private void run() throws Exception {
+        final ScheduledExecutorService starter = Executors.newScheduledThreadPool(4);
+        final CerberusPollingService pollingService = new CerberusPollingService(pollingThreads);
+        try (StubCerberusServer server =
+                new StubCerberusServer(
+                        depth, fanout, leaves, keys, responseDelayMillis, serverThreads)) {
+            System.out.printf(
+                    "Simulating %d instances, %s source, %s scheduler, %ds interval, %d nodes%n",
+                    instances, sourceType, schedulerType, intervalSeconds, server.getLeafCount());
+            for (int i = 0; i < instances; i++) {
+                final long delay =
+                        ThreadLocalRandom.current()
+                                .nextLong(TimeUnit.SECONDS.toMillis(startupSpreadSeconds) + 1);
+                starter.schedule(
+                        () -> startInstance(server.getUrl(), pollingService),
+                        delay,
+                        TimeUnit.MILLISECONDS);
+            }
+            Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+            synchronized (schedulers) {
+                schedulers.forEach(AbstractPollingScheduler::stop);
+            }
+            report(server);
+        } finally {
+            starter.shutdownNow();
+            pollingService.shutdown();
+        }
+    }
+
+    private void startInstance(final String url, final CerberusPollingService pollingService) {
+        try {
+            final CerberusClient client =
+                    CerberusClientFactory.getClient(
+                            url,
+                            () -> new TokenCerberusCredentials("simulation"),
+                            Collections.emptyMap());
+            final BaseCerberusConfigurationSource source = newSource(client);
+            source.setTracer(new PollTimer());
+            final AbstractPollingScheduler scheduler =
+                    "shared".equals(schedulerType)
+                            ? new CerberusPollingScheduler(
+                                    pollingService, intervalSeconds, TimeUnit.SECONDS)
+                            : new FixedDelayPollingScheduler(
+                                    intervalSeconds * 1000, intervalSeconds * 1000, true);
+            schedulers.add(scheduler);
+            new DynamicConfiguration(source, scheduler);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to start instance: " + e);
+        }
+    }
+
+    private BaseCerberusConfigurationSource newSource(final CerberusClient client) {
+        if ("flat".equals(sourceType)) {
+            final String[] paths = new String[leaves];
+            for (int i = 0; i < leaves; i++) {
+                paths[i] = StubCerberusServer.ROOT_PATH + "leaf-" + i;
+            }
+            return new CerberusConfigurationSource(client, paths);
+        }
+        return new NamespacedCerberusConfigurationSource(client, StubCerberusServer.ROOT_PATH);
+    }
+
+    private void report(final StubCerberusServer server) {
+        final long[] perSecond = server.getRequestsPerSecond();
+        final long total = server.getRequestCount();
+        final long peak = Arrays.stream(perSecond).max().orElse(0);
+        final double mean = perSecond.length == 0 ? 0 : (double) total / perSecond.length;
+
+        final long[] latencies = pollNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        System.out.printf(Locale.ROOT, "Server requests: %d over %ds%n", total, perSecond.length);
+        System.out.printf(Locale.ROOT, "Server QPS: mean %.1f, peak %d%n", mean, peak);
+        System.out.printf(
+                Locale.ROOT,
+                "Thundering herd: peak is %.1fx the mean%n",
+                mean == 0 ? 0 : peak / mean);
+        System.out.printf(
+                Locale.ROOT,
+                "Client polls: %d, latency p50 %.1fms, p90 %.1fms, p99 %.1fms, max %.1fms%n",
+                latencies.length,
+                millis(percentile(latencies, 50)),
+                millis(percentile(latencies, 90)),
+                millis(percentile(latencies, 99)),
+                millis(percentile(latencies, 100)));
+        System.out.println("Requests per second: " + Arrays.toString(perSecond));
+    }
+
+    private static long percentile(final long[] sorted, final int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /** Records the duration of every poll of an instance. */
+    private final class PollTimer implements CerberusTracer {
+
+        @Override
+        public CerberusSpan startSpan(final String name, final CerberusSpan parent) {
+            if (!POLL.equals(name)) {
+                return CerberusSpan.NOOP;
+            }
+            final long start = System.nanoTime();
+            return new CerberusSpan() {
+                @Override
+                public void setAttribute(final String key, final String value) {}
+
+                @Override
+                public void setAttribute(final String key, final long value) {}
+
+                @Override
+                public void recordError(final Throwable error) {}
+
+                @Override
+                public void end() {
+                    pollNanos.add(System.nanoTime() - start);
+                }
+            };
+        }
+    }
+}
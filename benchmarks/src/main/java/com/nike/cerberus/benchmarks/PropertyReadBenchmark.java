@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.benchmarks;
+
+import static org.mockito.Mockito.mock;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.secrets.CerberusProperty;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import com.nike.cerberus.secrets.CerberusSnapshot;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading an integer through a typed {@link CerberusProperty}, which is parsed once per
+ * snapshot, with looking it up in the current snapshot and parsing it on every read. With off-heap
+ * values enabled the lookup also includes decoding the value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyReadBenchmark {
+
+    @Param({"false", "true"})
+    private boolean offHeap;
+
+    private CerberusSecretSource source;
+
+    private CerberusProperty<Integer> property;
+
+    private String key;
+
+    @Setup
+    public void setUp() {
+        source =
+                new CerberusSecretSource(
+                        mock(CerberusClient.class),
+                        new SyntheticSecretLoader(1000, false),
+                        "app/benchmark/config");
+        source.setOffHeapValues(offHeap);
+        key = SyntheticSecretLoader.key(500);
+        property = source.getIntProperty(key, 0);
+        source.refresh();
+    }
+
+    @Benchmark
+    public Integer property() {
+        return property.get();
+    }
+
+    @Benchmark
+    public Object snapshotLookup() {
+        return source.getCurrentSnapshot().get(key);
+    }
+
+    @Benchmark
+    public int snapshotLookupAndParse() {
+        final CerberusSnapshot snapshot = source.getCurrentSnapshot();
+        return Integer.parseInt((String) snapshot.get(key));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.benchmarks;
+
+import static org.mockito.Mockito.mock;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import com.nike.cerberus.secrets.CerberusSnapshot;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a refresh of a {@link CerberusSecretSource}: diffing the loaded values against the
+ * current snapshot, publishing a new snapshot and updating typed properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotRefreshBenchmark {
+
+    @Param({"10", "1000"})
+    private int keyCount;
+
+    @Param({"false", "true"})
+    private boolean changing;
+
+    @Param({"false", "true"})
+    private boolean offHeap;
+
+    private CerberusSecretSource source;
+
+    @Setup
+    public void setUp() {
+        source =
+                new CerberusSecretSource(
+                        mock(CerberusClient.class),
+                        new SyntheticSecretLoader(keyCount, changing),
+                        "app/benchmark/config");
+        source.setOffHeapValues(offHeap);
+        source.getIntProperty(SyntheticSecretLoader.key(0), 0);
+        source.refresh();
+    }
+
+    @Benchmark
+    public CerberusSnapshot refresh() {
+        return source.refresh();
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP server answering Cerberus secret reads and folder listings for a synthetic SDB tree.
+ *
+ * <p>The tree below {@link #ROOT_PATH} has the given depth; every folder holds {@code fanout}
+ * sub-folders and {@code leaves} secret nodes of {@code keys} keys each. Requests are counted per
+ * second so that the load the fleet puts on Cerberus can be reported.
+ */
+class StubCerberusServer implements AutoCloseable {
+
+    static final String ROOT_PATH = "app/simulation/";
+
+    private static final String SECRET_PREFIX = "/v1/secret/";
+
+    private final int depth;
+
+    private final int fanout;
+
+    private final int leaves;
+
+    private final int keys;
+
+    private final long responseDelayMillis;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final ConcurrentHashMap<Long, LongAdder> requestsPerSecond = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Constructor that starts the server on an ephemeral local port.
+     *
+     * @param depth Number of folder levels below the root path
+     * @param fanout Sub-folders per folder
+     * @param leaves Secret nodes per folder
+     * @param keys Keys per secret node
+     * @param responseDelayMillis Delay added to every response to emulate server latency
+     * @param threads Number of threads serving requests
+     */
+    StubCerberusServer(
+            final int depth,
+            final int fanout,
+            final int leaves,
+            final int keys,
+            final long responseDelayMillis,
+            final int threads)
+            throws IOException {
+        this.depth = depth;
+        this.fanout = fanout;
+        this.leaves = leaves;
+        this.keys = keys;
+        this.responseDelayMillis = responseDelayMillis;
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(SECRET_PREFIX, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of requests received during each second since the server started.
+     *
+     * @return Requests per second, indexed by second
+     */
+    long[] getRequestsPerSecond() {
+        final long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos) + 1;
+        final long[] counts = new long[(int) seconds];
+        requestsPerSecond.forEach(
+                (second, count) -> {
+                    if (second < seconds) {
+                        counts[second.intValue()] = count.sum();
+                    }
+                });
+        return counts;
+    }
+
+    /** Number of secret nodes in the tree, i.e. reads needed by a full namespaced traversal */
+    long getLeafCount() {
+        long folders = 1;
+        long total = leaves;
+        for (int level = 0; level < depth; level++) {
+            folders *= fanout;
+            total += folders * leaves;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        requestsPerSecond.computeIfAbsent(second, s -> new LongAdder()).increment();
+        requests.increment();
+        try {
+            if (responseDelayMillis > 0) {
+                Thread.sleep(responseDelayMillis);
+            }
+            final String path =
+                    exchange.getRequestURI().getPath().substring(SECRET_PREFIX.length());
+            final String query = exchange.getRequestURI().getQuery();
+            final boolean list = query != null && query.contains("list=true");
+            final String body = list ? listBody(path) : readBody(path);
+            if (body == null) {
+                respond(exchange, 404, "{\"errors\":[]}");
+            } else {
+                respond(exchange, 200, body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"errors\":[]}");
+        }
+    }
+
+    private String listBody(final String path) {
+        final String folder = path.endsWith("/") ? path : path + "/";
+        final int level = levelOf(folder);
+        if (level < 0) {
+            return null;
+        }
+        final StringBuilder body = new StringBuilder("{\"data\":{\"keys\":[");
+        boolean first = true;
+        if (level < depth) {
+            for (int i = 0; i < fanout; i++) {
+                body.append(first ? "" : ",").append("\"folder-").append(i).append("/\"");
+                first = false;
+            }
+        }
+        for (int i = 0; i < leaves; i++) {
+            body.append(first ? "" : ",").append("\"leaf-").append(i).append('"');
+            first = false;
+        }
+        return body.append("]}}").toString();
+    }
+
+    private String readBody(final String path) {
+        final int slash = path.lastIndexOf('/');
+        if (slash < 0 || levelOf(path.substring(0, slash + 1)) < 0) {
+            return null;
+        }
+        final String node = path.substring(slash + 1);
+        final StringBuilder body = new StringBuilder("{\"data\":{");
+        for (int i = 0; i < keys; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("\"key")
+                    .append(i)
+                    .append("\":\"")
+                    .append(node)
+                    .append("-value")
+                    .append(i)
+                    .append('"');
+        }
+        return body.append("}}").toString();
+    }
+
+    /** Returns the folder's level below the root, or -1 if it is not part of the tree. */
+    private int levelOf(final String folder) {
+        if (!folder.startsWith(ROOT_PATH)) {
+            return -1;
+        }
+        final String relative = folder.substring(ROOT_PATH.length());
+        final int level = relative.isEmpty() ? 0 : relative.split("/").length;
+        return level <= depth ? level : -1;
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body)
+            throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.benchmarks;
+
+import com.nike.cerberus.secrets.CerberusSecretLoader;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loader returning generated properties without issuing any Cerberus request, so that benchmarks
+ * measure the snapshot machinery rather than the network or a mocking framework.
+ */
+class SyntheticSecretLoader implements CerberusSecretLoader {
+
+    private final int keyCount;
+
+    private final boolean changing;
+
+    private long generation;
+
+    /**
+     * Constructor
+     *
+     * @param keyCount Number of properties returned by every load
+     * @param changing Whether every load changes the value of one property
+     */
+    SyntheticSecretLoader(final int keyCount, final boolean changing) {
+        this.keyCount = keyCount;
+        this.changing = changing;
+    }
+
+    static String key(final int index) {
+        return "app.benchmark.config.key" + index;
+    }
+
+    @Override
+    public Map<String, Object> load(final CerberusSecretSource source) {
+        final Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            values.put(key(i), Integer.toString(i));
+        }
+        if (changing) {
+            values.put(key(0), Long.toString(++generation));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.CerberusServerException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+/** Span of the poll or request running on the current thread, used to nest child spans. */
+final class ActiveSpan {
+
+    static final String OK = "ok";
+
+    private static final ThreadLocal<CerberusSpan> CURRENT = new ThreadLocal<>();
+
+    private ActiveSpan() {}
+
+    static CerberusSpan get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the span the active one.
+     *
+     * @param span Span to activate
+     * @return The previously active span, to be passed to {@link #restore(CerberusSpan)}
+     */
+    static CerberusSpan activate(final CerberusSpan span) {
+        final CerberusSpan previous = CURRENT.get();
+        CURRENT.set(span);
+        return previous;
+    }
+
+    static void restore(final CerberusSpan previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static String status(final Throwable error) {
+        if (error instanceof CerberusServerException) {
+            return Integer.toString(((CerberusServerException) error).getCode());
+        }
+        if (error instanceof CerberusDeadlineExceededException) {
+            return "deadline";
+        }
+        return error instanceof CallNotPermittedException ? "rejected" : "error";
+    }
+}
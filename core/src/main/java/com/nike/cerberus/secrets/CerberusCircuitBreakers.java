@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.CerberusServerException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import java.time.Duration;
+
+/**
+ * Circuit breaker defaults for the Cerberus requests of a {@link CerberusSecretSource}.
+ *
+ * <p>The circuit opens when half of the last 20 calls failed or took longer than 5 seconds, and
+ * lets 3 probe calls through after 30 seconds. Server errors (5xx) and connection failures count as
+ * failures; client errors such as 404 are expected answers and do not.
+ */
+public final class CerberusCircuitBreakers {
+
+    private CerberusCircuitBreakers() {}
+
+    /**
+     * Returns the default circuit breaker configuration.
+     *
+     * @return Circuit breaker configuration
+     */
+    public static CircuitBreakerConfig defaultConfig() {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowSize(20)
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(50)
+                .slowCallRateThreshold(50)
+                .slowCallDurationThreshold(Duration.ofSeconds(5))
+                .waitDurationInOpenState(Duration.ofSeconds(30))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(CerberusCircuitBreakers::isFailure)
+                .build();
+    }
+
+    /**
+     * Creates a circuit breaker with the default configuration.
+     *
+     * @param name Circuit breaker name
+     * @return Circuit breaker
+     */
+    public static CircuitBreaker create(final String name) {
+        return CircuitBreaker.of(name, defaultConfig());
+    }
+
+    static boolean isFailure(final Throwable throwable) {
+        return !(throwable instanceof CerberusServerException)
+                || ((CerberusServerException) throwable).getCode() >= 500;
+    }
+}
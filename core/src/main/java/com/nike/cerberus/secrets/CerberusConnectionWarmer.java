@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import cerberus.okhttp3.Call;
+import cerberus.okhttp3.Callback;
+import cerberus.okhttp3.HttpUrl;
+import cerberus.okhttp3.OkHttpClient;
+import cerberus.okhttp3.Request;
+import cerberus.okhttp3.Response;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pays for DNS resolution, TCP connect, TLS handshake and authentication before the first poll
+ * instead of during it.
+ *
+ * <p>{@link #connect} sends unauthenticated health checks through the HTTP client that the Cerberus
+ * client will use, so the connections they open (HTTP/2 where the server negotiates it) stay in its
+ * pool. {@link #authenticate} fetches credentials on a separate thread. Warm-up is best effort:
+ * failures are logged and the first poll simply pays the cost again.
+ */
+public final class CerberusConnectionWarmer {
+
+    /** Path of the Cerberus health check requested to open connections */
+    public static final String HEALTHCHECK_PATH = "healthcheck";
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusConnectionWarmer.class);
+
+    private CerberusConnectionWarmer() {}
+
+    /**
+     * Opens connections to Cerberus by sending concurrent health checks. Over HTTP/1.1 every
+     * concurrent request opens its own connection; over HTTP/2 they share one.
+     *
+     * @param httpClient HTTP client the Cerberus client is built with
+     * @param url Cerberus URL
+     * @param connections Number of concurrent health checks
+     * @return Completes when every health check has finished, successfully or not
+     * @throws IllegalArgumentException if httpClient is null, url is invalid or connections is not
+     *     positive
+     */
+    public static CompletableFuture<Void> connect(
+            final OkHttpClient httpClient, final String url, final int connections) {
+        if (httpClient == null) {
+            throw new IllegalArgumentException("httpClient cannot be null");
+        }
+        final HttpUrl baseUrl = url == null ? null : HttpUrl.parse(url);
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("url is not a valid URL: " + url);
+        }
+        if (connections <= 0) {
+            throw new IllegalArgumentException("connections must be positive");
+        }
+        final Request request =
+                new Request.Builder().url(baseUrl.resolve(HEALTHCHECK_PATH)).get().build();
+        final CompletableFuture<?>[] checks = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            final CompletableFuture<Void> check = new CompletableFuture<>();
+            httpClient
+                    .newCall(request)
+                    .enqueue(
+                            new Callback() {
+                                @Override
+                                public void onFailure(final Call call, final IOException e) {
+                                    logger.warn("Failed to pre-warm connection to {}", url, e);
+                                    check.complete(null);
+                                }
+
+                                @Override
+                                public void onResponse(final Call call, final Response response) {
+                                    try (Response closed = response) {
+                                        logger.debug(
+                                                "Pre-warmed {} connection to {}, status={}",
+                                                closed.protocol(),
+                                                url,
+                                                closed.code());
+                                    }
+                                    check.complete(null);
+                                }
+                            });
+            checks[i] = check;
+        }
+        return CompletableFuture.allOf(checks);
+    }
+
+    /**
+     * Fetches credentials on a daemon thread so the provider caches a token before the first poll.
+     *
+     * @param provider Credentials provider of the Cerberus client
+     * @return Completes when authentication has finished, successfully or not
+     * @throws IllegalArgumentException if provider is null
+     */
+    public static CompletableFuture<Void> authenticate(final CerberusCredentialsProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("provider cannot be null");
+        }
+        final CompletableFuture<Void> authenticated = new CompletableFuture<>();
+        final Thread thread =
+                new Thread(
+                        () -> {
+                            try {
+                                provider.getCredentials();
+                            } catch (RuntimeException e) {
+                                logger.warn("Failed to pre-authenticate with Cerberus", e);
+                            } finally {
+                                authenticated.complete(null);
+                            }
+                        },
+                        "cerberus-prewarm-auth");
+        thread.setDaemon(true);
+        thread.start();
+        return authenticated;
+    }
+
+    /**
+     * Waits for a warm-up to finish, giving up after the timeout.
+     *
+     * @param warmUp Future returned by {@link #connect} or {@link #authenticate}
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if the warm-up finished in time
+     */
+    public static boolean await(
+            final CompletableFuture<?> warmUp, final long timeout, final TimeUnit unit) {
+        try {
+            warmUp.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            logger.warn("Cerberus pre-warm did not finish within {} {}", timeout, unit);
+            return false;
+        } catch (ExecutionException e) {
+            logger.warn("Cerberus pre-warm failed", e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+/**
+ * Thrown instead of sending a Cerberus request once the deadline of the running poll has passed.
+ *
+ * @see CerberusSecretSource#setPollDeadline(long, java.util.concurrent.TimeUnit,
+ *     CerberusSecretSource.OverrunMode)
+ */
+public class CerberusDeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CerberusDeadlineExceededException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Decides which Cerberus paths are traversed, based on include/exclude glob patterns and a maximum
+ * depth below the configured root paths.
+ *
+ * <p>Patterns are matched against full Cerberus paths without a trailing slash, e.g.
+ * app/myApplication/prod/config. {@code *} matches within a single path segment, {@code **} matches
+ * across segments and {@code ?} matches a single character. A trailing {@code /**} also matches the
+ * folder itself, so app/myApplication/archive/** excludes the archive folder without listing it.
+ */
+public class CerberusPathFilter {
+
+    /** Filter that accepts every path at any depth */
+    public static final CerberusPathFilter ACCEPT_ALL =
+            new CerberusPathFilter(
+                    Collections.<String>emptyList(),
+                    Collections.<String>emptyList(),
+                    Integer.MAX_VALUE);
+
+    private final List<Pattern> includes = new ArrayList<>();
+
+    private final List<String> includePrefixes = new ArrayList<>();
+
+    private final List<Pattern> excludes = new ArrayList<>();
+
+    private final int maxDepth;
+
+    /**
+     * Constructor
+     *
+     * @param includes Glob patterns of leaf paths to read. If empty, every leaf is read.
+     * @param excludes Glob patterns of folder or leaf paths to skip
+     * @param maxDepth Maximum number of path segments below a root path that are traversed
+     * @throws IllegalArgumentException if includes or excludes is null or maxDepth is negative
+     */
+    public CerberusPathFilter(
+            final List<String> includes, final List<String> excludes, final int maxDepth) {
+        if (includes == null || excludes == null) {
+            throw new IllegalArgumentException("includes and excludes cannot be null");
+        }
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth cannot be negative");
+        }
+        for (final String include : includes) {
+            this.includes.add(toPattern(include));
+            this.includePrefixes.add(literalPrefix(include));
+        }
+        for (final String exclude : excludes) {
+            this.excludes.add(toPattern(exclude));
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns true if the folder should be listed.
+     *
+     * @param folder Folder path, ending with a forward slash
+     * @param depth Number of path segments between the root path and this folder
+     * @return true if the folder may contain leaves that pass this filter
+     */
+    public boolean shouldList(final String folder, final int depth) {
+        if (depth >= maxDepth) {
+            return false;
+        }
+        final String path = StringUtils.removeEnd(folder, "/");
+        if (matchesAny(excludes, path)) {
+            return false;
+        }
+        if (includePrefixes.isEmpty()) {
+            return true;
+        }
+        for (final String prefix : includePrefixes) {
+            if (folder.startsWith(prefix) || prefix.startsWith(folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the leaf should be read.
+     *
+     * @param leaf Leaf path
+     * @param depth Number of path segments between the root path and this leaf
+     * @return true if the leaf passes this filter
+     */
+    public boolean shouldRead(final String leaf, final int depth) {
+        if (depth > maxDepth || matchesAny(excludes, leaf)) {
+            return false;
+        }
+        return includes.isEmpty() || matchesAny(includes, leaf);
+    }
+
+    private static boolean matchesAny(final List<Pattern> patterns, final String path) {
+        for (final Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the part of a glob before its first wildcard. */
+    private static String literalPrefix(final String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                return glob.substring(0, i);
+            }
+        }
+        return glob;
+    }
+
+    /** Converts a glob to a regular expression. */
+    static Pattern toPattern(final String glob) {
+        final StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            if (glob.startsWith("/**", i) && i + 3 == glob.length()) {
+                regex.append("(?:/.*)?");
+                i += 3;
+            } else if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else {
+                final char c = glob.charAt(i);
+                if (c == '*') {
+                    regex.append("[^/]*");
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+                i++;
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.CerberusClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls any number of Cerberus secret sources on one small, bounded pool of daemon threads.
+ *
+ * <p>Sources that share a {@link CerberusClient} and an interval are merged into a single refresh
+ * cycle: one scheduled task refreshes them one after the other, so they wake up together and reuse
+ * the client's connections instead of each source owning a poller thread. A failing source is
+ * logged and does not prevent the others in its cycle from being refreshed. The first refresh of a
+ * cycle happens one interval after it is scheduled; sources are expected to have been loaded once
+ * before they are registered.
+ *
+ * <pre>{@code
+ * CerberusPollingService pollingService = new CerberusPollingService(1);
+ * source.refresh();
+ * pollingService.register(source, 1, TimeUnit.HOURS);
+ * }</pre>
+ */
+public class CerberusPollingService implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusPollingService.class);
+
+    private static final AtomicInteger SERVICE_COUNT = new AtomicInteger();
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Map<CycleKey, Cycle> cycles = new HashMap<>();
+
+    private final Map<CerberusSecretSource, Registration> registrations = new IdentityHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param poolSize Maximum number of threads refreshing sources concurrently
+     * @throws IllegalArgumentException if poolSize is not positive
+     */
+    public CerberusPollingService(final int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive");
+        }
+        final int serviceId = SERVICE_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor =
+                new ScheduledThreadPoolExecutor(
+                        poolSize,
+                        runnable -> {
+                            final Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "cerberus-polling-"
+                                                    + serviceId
+                                                    + "-"
+                                                    + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Refreshes the source at a fixed delay. Registering a source again replaces its previous
+     * registration, which is how its interval is changed.
+     *
+     * @param source Source to refresh
+     * @param interval Delay between the end of one refresh cycle and the start of the next
+     * @param unit Unit of the interval
+     * @return Handle used to stop polling the source
+     */
+    public Registration register(
+            final CerberusSecretSource source, final long interval, final TimeUnit unit) {
+        return register(source, source::refresh, interval, unit);
+    }
+
+    /**
+     * Runs the given poll for the source at a fixed delay, in the refresh cycle of the source's
+     * client. Used by adapters whose polling wraps {@link CerberusSecretSource#refresh()}.
+     *
+     * @param source Source being polled
+     * @param poll Action refreshing the source
+     * @param interval Delay between the end of one refresh cycle and the start of the next
+     * @param unit Unit of the interval
+     * @return Handle used to stop polling the source
+     * @throws IllegalArgumentException if source, poll or unit is null or interval is not positive
+     */
+    public synchronized Registration register(
+            final CerberusSecretSource source,
+            final Runnable poll,
+            final long interval,
+            final TimeUnit unit) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        if (poll == null) {
+            throw new IllegalArgumentException("poll cannot be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Polling service has been shut down");
+        }
+        final Registration previous = registrations.get(source);
+        if (previous != null) {
+            unregister(previous);
+        }
+        final CycleKey key = new CycleKey(source.getCerberusClient(), unit.toNanos(interval));
+        final Registration registration = new Registration(source, poll, key);
+        registrations.put(source, registration);
+        cycles.computeIfAbsent(key, this::startCycle).registrations.add(registration);
+        return registration;
+    }
+
+    /**
+     * Returns the interval the source is polled at.
+     *
+     * @param source Registered source
+     * @param unit Unit of the returned interval
+     * @return Polling interval, or -1 if the source is not registered
+     */
+    public synchronized long getInterval(final CerberusSecretSource source, final TimeUnit unit) {
+        final Registration registration = registrations.get(source);
+        return registration == null ? -1 : registration.getInterval(unit);
+    }
+
+    /**
+     * Stops polling the source.
+     *
+     * @param source Registered source
+     */
+    public synchronized void unregister(final CerberusSecretSource source) {
+        final Registration registration = registrations.get(source);
+        if (registration != null) {
+            unregister(registration);
+        }
+    }
+
+    /** Number of refresh cycles currently scheduled */
+    synchronized int getCycleCount() {
+        return cycles.size();
+    }
+
+    /** Stops all polling and releases the threads. */
+    public void shutdown() {
+        synchronized (this) {
+            registrations.clear();
+            cycles.clear();
+        }
+        executor.shutdownNow();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private synchronized void unregister(final Registration registration) {
+        if (registrations.get(registration.source) == registration) {
+            registrations.remove(registration.source);
+        }
+        final Cycle cycle = cycles.get(registration.key);
+        if (cycle != null
+                && cycle.registrations.remove(registration)
+                && cycle.registrations.isEmpty()) {
+            cycle.future.cancel(false);
+            cycles.remove(registration.key);
+        }
+    }
+
+    private Cycle startCycle(final CycleKey key) {
+        final Cycle cycle = new Cycle();
+        cycle.future =
+                executor.scheduleWithFixedDelay(
+                        () -> runCycle(cycle),
+                        key.intervalNanos,
+                        key.intervalNanos,
+                        TimeUnit.NANOSECONDS);
+        return cycle;
+    }
+
+    private void runCycle(final Cycle cycle) {
+        for (final Registration registration : new ArrayList<>(cycle.registrations)) {
+            try {
+                registration.poll.run();
+            } catch (Throwable t) {
+                // an escaping Error would cancel the whole cycle, stopping every source in it
+                logger.error(
+                        "Failed to refresh Cerberus paths {}, keeping current values",
+                        registration.source.getPaths(),
+                        t);
+            }
+        }
+    }
+
+    /** Handle of a source registered with a {@link CerberusPollingService} */
+    public final class Registration {
+
+        private final CerberusSecretSource source;
+
+        private final Runnable poll;
+
+        private final CycleKey key;
+
+        private Registration(
+                final CerberusSecretSource source, final Runnable poll, final CycleKey key) {
+            this.source = source;
+            this.poll = poll;
+            this.key = key;
+        }
+
+        public CerberusSecretSource getSource() {
+            return source;
+        }
+
+        /**
+         * Returns the interval the source is polled at.
+         *
+         * @param unit Unit of the returned interval
+         * @return Polling interval
+         */
+        public long getInterval(final TimeUnit unit) {
+            return unit.convert(key.intervalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** Stops polling the source. Has no effect if it was already stopped or replaced. */
+        public void cancel() {
+            unregister(this);
+        }
+    }
+
+    private static final class Cycle {
+
+        private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+        private ScheduledFuture<?> future;
+    }
+
+    private static final class CycleKey {
+
+        private final CerberusClient client;
+
+        private final long intervalNanos;
+
+        private CycleKey(final CerberusClient client, final long intervalNanos) {
+            this.client = client;
+            this.intervalNanos = intervalNanos;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof CycleKey)) {
+                return false;
+            }
+            final CycleKey other = (CycleKey) o;
+            return client == other.client && intervalNanos == other.intervalNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(client) + Long.hashCode(intervalNanos);
+        }
+    }
+}
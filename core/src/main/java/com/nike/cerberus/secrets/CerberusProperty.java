@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Typed view of a single property of a Cerberus configuration source.
+ *
+ * <p>The value is parsed once, when a snapshot containing the property is published, and kept in a
+ * volatile field. {@link #get()} is therefore a single field read with no parsing or map lookup,
+ * which makes it suitable for hot request paths. Instances are obtained from the typed accessors of
+ * {@link CerberusSecretSource} and should be created once and held on to.
+ *
+ * @param <T> Type of the property value
+ */
+public final class CerberusProperty<T> {
+
+    /** Parses integers */
+    public static final Function<String, Integer> INTEGER = value -> Integer.valueOf(value.trim());
+
+    /** Parses longs */
+    public static final Function<String, Long> LONG = value -> Long.valueOf(value.trim());
+
+    /** Parses booleans, accepting only "true" or "false" in any case */
+    public static final Function<String, Boolean> BOOLEAN =
+            value -> {
+                final String trimmed = value.trim();
+                if ("true".equalsIgnoreCase(trimmed)) {
+                    return Boolean.TRUE;
+                }
+                if ("false".equalsIgnoreCase(trimmed)) {
+                    return Boolean.FALSE;
+                }
+                throw new IllegalArgumentException("Not a boolean");
+            };
+
+    /** Parses ISO-8601 durations such as PT30S, or a plain number of milliseconds */
+    public static final Function<String, Duration> DURATION =
+            value -> {
+                final String trimmed = value.trim();
+                if (trimmed.startsWith("P") || trimmed.startsWith("p")) {
+                    return Duration.parse(trimmed);
+                }
+                return Duration.ofMillis(Long.parseLong(trimmed));
+            };
+
+    /** Parses comma separated lists, trimming each element and skipping empty ones */
+    public static final Function<String, List<String>> LIST =
+            value -> {
+                final List<String> list = new ArrayList<>();
+                for (final String element : value.split(",")) {
+                    if (!element.trim().isEmpty()) {
+                        list.add(element.trim());
+                    }
+                }
+                return Collections.unmodifiableList(list);
+            };
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusProperty.class);
+
+    private final String key;
+
+    private final Function<String, T> parser;
+
+    private final T defaultValue;
+
+    private volatile T value;
+
+    CerberusProperty(final String key, final Function<String, T> parser, final T defaultValue) {
+        this.key = key;
+        this.parser = parser;
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+    }
+
+    /**
+     * Returns the parsed value of the property in the current snapshot.
+     *
+     * @return The value, or the default if the property is missing or could not be parsed
+     */
+    public T get() {
+        return value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Parses the value of this property from a newly published snapshot.
+     *
+     * @param snapshot The published snapshot
+     */
+    void update(final CerberusSnapshot snapshot) {
+        final Object raw = snapshot.get(key);
+        if (raw == null) {
+            value = defaultValue;
+            return;
+        }
+        try {
+            value = parser.apply(raw.toString());
+        } catch (RuntimeException e) {
+            // the exception is not logged as its message may contain the secret value
+            logger.warn(
+                    "Unable to parse property {} ({}), using the default value",
+                    key,
+                    e.getClass().getSimpleName());
+            value = defaultValue;
+        }
+    }
+}
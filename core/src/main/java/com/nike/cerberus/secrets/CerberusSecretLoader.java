@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nike.cerberus.secrets;
+
+import java.util.Map;
+
+/** Strategy deciding how a {@link CerberusSecretSource} reads its paths and keys the result. */
+public interface CerberusSecretLoader {
+
+    /**
+     * Reads all paths of the source.
+     *
+     * @param source The source being refreshed; requests must be issued through it
+     * @return Map of property name to value
+     */
+    Map<String, Object> load(CerberusSecretSource source);
+}
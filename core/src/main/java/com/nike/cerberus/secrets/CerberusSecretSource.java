@@ -0,0 +1,1005 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import org.apache.commons.lang3.StringUtils;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads secrets from one or more Cerberus paths and publishes them as immutable {@link
+ * CerberusSnapshot snapshots}, independently of any configuration library.
+ *
+ * <p>How the paths are read and how the resulting properties are keyed is decided by the {@link
+ * CerberusSecretLoader}. Loaders issue every Cerberus request through {@link #read(String)}, {@link
+ * #list(String)}, {@link #listFiles(String)} and {@link #readFileAsBytes(String)}.
+ */
+public class CerberusSecretSource {
+
+    /** Default time a superseded snapshot stays readable before it is released, 30 seconds */
+    public static final long DEFAULT_RELEASE_DELAY_MILLIS = 30_000;
+
+    /** Releases superseded snapshots once no reader can still be using them */
+    private static final ScheduledThreadPoolExecutor RELEASER =
+            new ScheduledThreadPoolExecutor(
+                    1,
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, "cerberus-snapshot-release");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    /** Runs background refreshes, one daemon thread per refresh in flight */
+    private static final ExecutorService BACKGROUND_LOADER =
+            Executors.newCachedThreadPool(
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, "cerberus-background-load");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    private final CerberusClient cerberusClient;
+
+    private final CerberusSecretLoader loader;
+
+    private final Set<String> paths;
+
+    private final List<CerberusSnapshotListener> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    /** Properties by key, guarded by this source's monitor */
+    private final Map<String, List<CerberusProperty<?>>> properties = new HashMap<>();
+
+    /** Handles returned by {@link #bind(String)}, guarded by this source's monitor */
+    private final Map<String, CerberusProperty<String>> boundHandles = new HashMap<>();
+
+    private volatile CerberusSnapshot currentSnapshot;
+
+    private volatile boolean offHeapValues;
+
+    private volatile long releaseDelayNanos =
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_RELEASE_DELAY_MILLIS);
+
+    private volatile CircuitBreaker circuitBreaker;
+
+    private volatile CerberusTracer tracer = CerberusTracer.NOOP;
+
+    /**
+     * Serializes loads, so concurrent refreshes neither interleave their refresh cache generations
+     * nor publish out of order
+     */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private final PathRefreshCache refreshCache = new PathRefreshCache();
+
+    private final PathTimings pathTimings = new PathTimings();
+
+    private final LongAdder failedRefreshCount = new LongAdder();
+
+    private volatile boolean paused;
+
+    private volatile long lastRefreshMillis;
+
+    private volatile long lastRefreshDurationNanos;
+
+    private volatile long lastPollCompressedBytes;
+
+    private volatile long lastPollUncompressedBytes;
+
+    private volatile long pollDeadlineNanos;
+
+    private volatile OverrunMode overrunMode = OverrunMode.KEEP_PREVIOUS;
+
+    private final LongAdder pollOverrunCount = new LongAdder();
+
+    private final ThreadLocal<PollDeadline> activeDeadline = new ThreadLocal<>();
+
+    private final Map<String, PathPriority> pathPriorities = new ConcurrentSkipListMap<>();
+
+    private final ThreadLocal<Boolean> loadingCritical = new ThreadLocal<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusSecretSource.class);
+
+    /**
+     * Constructor that accepts a Set&lt;String&gt; for paths.
+     *
+     * @param cerberusClient Instance of {@link CerberusClient}
+     * @param loader Reads the paths and keys the resulting properties
+     * @param paths Set&lt;String&gt; containing cerberus paths where secrets are stored
+     * @throws IllegalArgumentException if cerberusClient or loader is null or if paths is
+     *     null/empty
+     */
+    public CerberusSecretSource(
+            final CerberusClient cerberusClient,
+            final CerberusSecretLoader loader,
+            final Set<String> paths) {
+        if (cerberusClient == null) {
+            throw new IllegalArgumentException("cerberusClient cannot be null");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("loader cannot be null");
+        }
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("paths cannot be null or empty");
+        }
+        this.cerberusClient = cerberusClient;
+        this.loader = loader;
+        this.paths = new HashSet<>(paths);
+        logger.info("paths={}", this.paths);
+    }
+
+    /**
+     * Constructor that accepts var args for paths.
+     *
+     * @param cerberusClient Instance of {@link CerberusClient}
+     * @param loader Reads the paths and keys the resulting properties
+     * @param paths one or more cerberus paths where secrets are stored
+     * @throws IllegalArgumentException if cerberusClient or loader is null or if paths is
+     *     null/empty
+     */
+    public CerberusSecretSource(
+            final CerberusClient cerberusClient,
+            final CerberusSecretLoader loader,
+            final String... paths) {
+        this(cerberusClient, loader, paths == null ? null : new HashSet<>(Arrays.asList(paths)));
+    }
+
+    public CerberusClient getCerberusClient() {
+        return cerberusClient;
+    }
+
+    public CerberusSecretLoader getLoader() {
+        return loader;
+    }
+
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Reads the secrets stored at a path.
+     *
+     * @param path Cerberus path
+     * @return Cerberus response
+     */
+    public CerberusResponse read(final String path) {
+        return fetch(
+                CerberusTracer.READ,
+                path,
+                () -> cerberusClient.read(path),
+                CerberusSecretSource::size);
+    }
+
+    /**
+     * Lists the keys of a folder.
+     *
+     * @param path Cerberus folder path
+     * @return Cerberus list response
+     */
+    public CerberusListResponse list(final String path) {
+        return fetch(
+                CerberusTracer.LIST,
+                path,
+                () -> cerberusClient.list(path),
+                CerberusSecretSource::size);
+    }
+
+    /**
+     * Lists the secure files stored under a path.
+     *
+     * @param path Cerberus path
+     * @return Cerberus list files response
+     */
+    public CerberusListFilesResponse listFiles(final String path) {
+        return fetch(
+                CerberusTracer.LIST_FILES,
+                path,
+                () -> cerberusClient.listFiles(path),
+                CerberusSecretSource::size);
+    }
+
+    /**
+     * Downloads a secure file.
+     *
+     * @param path Full Cerberus path of the file
+     * @return File content
+     */
+    public byte[] readFileAsBytes(final String path) {
+        return call(
+                CerberusTracer.READ_FILE,
+                path,
+                () -> cerberusClient.readFileAsBytes(path),
+                bytes -> bytes.length);
+    }
+
+    /**
+     * Guards every Cerberus request of this source with a circuit breaker. While the circuit is
+     * open, requests fail immediately and {@link #refresh()} returns the last good snapshot instead
+     * of waiting for Cerberus to time out. See {@link CerberusCircuitBreakers} for defaults.
+     *
+     * @param circuitBreaker Circuit breaker, or null to disable it
+     */
+    public void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Refreshes the paths starting with the given prefix at their own interval instead of on every
+     * refresh. Until the interval has elapsed, requests for these paths are answered with the
+     * response fetched last and only the other paths are read from Cerberus; the result is merged
+     * into a new snapshot as usual. Poll the source at the interval of its fastest changing paths
+     * and give slower subtrees longer intervals. When prefixes overlap, the longest one applies.
+     *
+     * @param prefix Cerberus path prefix, e.g. app/my-sdb/static/
+     * @param interval Refresh interval, 0 to refresh the paths on every refresh again
+     * @param unit Unit of the interval
+     * @throws IllegalArgumentException if prefix or unit is null or interval is negative
+     */
+    public void setRefreshInterval(final String prefix, final long interval, final TimeUnit unit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("prefix cannot be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval cannot be negative");
+        }
+        refreshCache.setInterval(prefix, unit.toNanos(interval));
+    }
+
+    /**
+     * Returns the refresh interval applying to a path.
+     *
+     * @param path Cerberus path
+     * @param unit Unit of the returned interval
+     * @return Refresh interval, or 0 if the path is read on every refresh
+     */
+    public long getRefreshInterval(final String path, final TimeUnit unit) {
+        return unit.convert(refreshCache.getInterval(path), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the priority of the paths starting with the given prefix. Once a prefix is {@link
+     * PathPriority#CRITICAL critical}, {@link #refreshCritical()} loads only the critical paths,
+     * plus the folders leading to them, and {@link #refreshInBackground()} loads the rest. Paths
+     * without a priority are {@link PathPriority#BACKGROUND background} paths. When prefixes
+     * overlap, the longest one applies.
+     *
+     * @param prefix Cerberus path prefix, e.g. app/my-sdb/db/
+     * @param priority Priority of the paths
+     * @throws IllegalArgumentException if prefix or priority is null
+     */
+    public void setPathPriority(final String prefix, final PathPriority priority) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("prefix cannot be null");
+        }
+        if (priority == null) {
+            throw new IllegalArgumentException("priority cannot be null");
+        }
+        pathPriorities.put(prefix, priority);
+    }
+
+    /**
+     * Returns the priority applying to a path.
+     *
+     * @param path Cerberus path
+     * @return Priority of the longest matching prefix, or background if no prefix matches
+     */
+    public PathPriority getPathPriority(final String path) {
+        String match = null;
+        for (final String prefix : pathPriorities.keySet()) {
+            if (path.startsWith(prefix) && (match == null || prefix.length() > match.length())) {
+                match = prefix;
+            }
+        }
+        return match == null ? PathPriority.BACKGROUND : pathPriorities.get(match);
+    }
+
+    /**
+     * Returns whether any path prefix has been given the critical priority.
+     *
+     * @return true if refreshes can be split by priority
+     */
+    public boolean hasCriticalPaths() {
+        return pathPriorities.containsValue(PathPriority.CRITICAL);
+    }
+
+    /**
+     * Returns whether loaders should skip a path during the running refresh. Only {@link
+     * #refreshCritical()} defers paths: those that are not critical and do not lead to a critical
+     * path. Loaders check this before listing or reading a path; loaders that do not simply load
+     * every path.
+     *
+     * @param path Cerberus path
+     * @return true if the path is left for a later refresh
+     */
+    public boolean isDeferred(final String path) {
+        if (loadingCritical.get() == null || getPathPriority(path) == PathPriority.CRITICAL) {
+            return false;
+        }
+        if (StringUtils.endsWith(path, "/")) {
+            for (final Map.Entry<String, PathPriority> entry : pathPriorities.entrySet()) {
+                if (entry.getValue() == PathPriority.CRITICAL && entry.getKey().startsWith(path)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads only the critical paths and publishes them as the first snapshot, so startup can wait
+     * for the few secrets needed to serve traffic. Follow with {@link #refreshInBackground()} to
+     * load the other paths. Without critical paths, or once a snapshot has been published, this is
+     * a regular {@link #refresh()}, so no loaded keys are ever dropped.
+     *
+     * @return The snapshot of the critical paths
+     */
+    public CerberusSnapshot refreshCritical() {
+        if (!hasCriticalPaths() || currentSnapshot != null) {
+            return refresh();
+        }
+        loadingCritical.set(Boolean.TRUE);
+        try {
+            final CerberusSnapshot snapshot = refresh();
+            logger.info("Loaded {} critical keys", snapshot.getValues().size());
+            return snapshot;
+        } finally {
+            loadingCritical.remove();
+        }
+    }
+
+    /**
+     * Refreshes the source on a daemon thread, typically to load the background paths after {@link
+     * #refreshCritical()}. A failure is logged and left for the next refresh.
+     *
+     * @return Completes with the snapshot of every path, or exceptionally if the refresh failed
+     */
+    public CompletableFuture<CerberusSnapshot> refreshInBackground() {
+        final CompletableFuture<CerberusSnapshot> refreshed = new CompletableFuture<>();
+        BACKGROUND_LOADER.execute(
+                () -> {
+                    try {
+                        refreshed.complete(refresh());
+                    } catch (Throwable t) {
+                        logger.error("Failed to load background paths from Cerberus", t);
+                        refreshed.completeExceptionally(t);
+                    }
+                });
+        return refreshed;
+    }
+
+    /**
+     * Sets the tracer receiving a span per refresh and a child span per Cerberus request.
+     *
+     * @param tracer Tracer. May not be null, use {@link CerberusTracer#NOOP} to disable tracing.
+     * @throws IllegalArgumentException if tracer is null
+     */
+    public void setTracer(final CerberusTracer tracer) {
+        if (tracer == null) {
+            throw new IllegalArgumentException("tracer cannot be null");
+        }
+        this.tracer = tracer;
+    }
+
+    public CerberusTracer getTracer() {
+        return tracer;
+    }
+
+    private <T> T fetch(
+            final String operation,
+            final String path,
+            final Supplier<T> request,
+            final ToLongFunction<T> size) {
+        try {
+            return refreshCache.get(operation, path, () -> call(operation, path, request, size));
+        } catch (CerberusDeadlineExceededException e) {
+            if (overrunMode == OverrunMode.MERGE_PARTIAL) {
+                final T last = refreshCache.getLast(operation, path);
+                if (last != null) {
+                    return last;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private <T> T call(
+            final String operation,
+            final String path,
+            final Supplier<T> request,
+            final ToLongFunction<T> size) {
+        final PollDeadline deadline = activeDeadline.get();
+        if (deadline != null && deadline.isExpired()) {
+            deadline.overrun = true;
+            throw new CerberusDeadlineExceededException(
+                    "Poll deadline exceeded before " + operation + " " + path);
+        }
+        final CerberusSpan span = tracer.startSpan(operation, ActiveSpan.get());
+        final CerberusSpan previous = ActiveSpan.activate(span);
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            span.setAttribute(CerberusSpan.PATH, path);
+            span.setAttribute(CerberusSpan.DEPTH, depth(path));
+            final CircuitBreaker breaker = circuitBreaker;
+            final T response = breaker == null ? request.get() : breaker.executeSupplier(request);
+            final long bytes = response == null ? 0 : size.applyAsLong(response);
+            span.setAttribute(CerberusSpan.BYTES, bytes);
+            span.setAttribute(CerberusSpan.STATUS, ActiveSpan.OK);
+            return response;
+        } catch (RuntimeException e) {
+            failed = !(e instanceof CallNotPermittedException);
+            span.setAttribute(CerberusSpan.STATUS, ActiveSpan.status(e));
+            span.recordError(e);
+            throw e;
+        } finally {
+            pathTimings.record(path, System.nanoTime() - start, failed);
+            ActiveSpan.restore(previous);
+            span.end();
+        }
+    }
+
+    private static long depth(final String path) {
+        return StringUtils.countMatches(StringUtils.removeEnd(path, "/"), '/');
+    }
+
+    private static long size(final CerberusResponse response) {
+        long size = 0;
+        if (response.getData() != null) {
+            for (final Map.Entry<String, String> entry : response.getData().entrySet()) {
+                size += length(entry.getKey()) + length(entry.getValue());
+            }
+        }
+        return size;
+    }
+
+    private static long size(final CerberusListResponse response) {
+        long size = 0;
+        if (response.getKeys() != null) {
+            for (final String key : response.getKeys()) {
+                size += length(key);
+            }
+        }
+        return size;
+    }
+
+    private static long size(final CerberusListFilesResponse response) {
+        long size = 0;
+        if (response.getSecureFileSummaries() != null) {
+            for (final SecureFileSummary summary : response.getSecureFileSummaries()) {
+                size += length(summary.getPath());
+            }
+        }
+        return size;
+    }
+
+    private static int length(final String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Enables storing the String values of the current snapshot in direct buffers outside of the
+     * Java heap. Values are decoded on access, and the buffers of a snapshot are overwritten with
+     * zeros once the {@link #setReleaseDelay(long, TimeUnit) release delay} has passed after a
+     * newer snapshot replaced it, so superseded secrets do not linger until the next garbage
+     * collection. Consumers must therefore not hold on to a superseded snapshot for longer than
+     * that delay.
+     *
+     * @param offHeapValues true to store snapshot values off-heap
+     */
+    public void setOffHeapValues(final boolean offHeapValues) {
+        this.offHeapValues = offHeapValues;
+    }
+
+    public boolean isOffHeapValues() {
+        return offHeapValues;
+    }
+
+    /**
+     * Sets how long a superseded snapshot stays readable before its off-heap values are zeroized
+     * and the temporary copies of its dropped secure files are deleted. Listeners, subscribers and
+     * configurations may still be reading the previous snapshot while a newer one is published; the
+     * delay lets them finish. Defaults to {@link #DEFAULT_RELEASE_DELAY_MILLIS}.
+     *
+     * @param delay Release delay, 0 to release a snapshot as soon as its listeners have run
+     * @param unit Unit of the delay
+     * @throws IllegalArgumentException if unit is null or delay is negative
+     */
+    public void setReleaseDelay(final long delay, final TimeUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay cannot be negative");
+        }
+        this.releaseDelayNanos = unit.toNanos(delay);
+    }
+
+    public long getReleaseDelay(final TimeUnit unit) {
+        return unit.convert(releaseDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Pauses or resumes refreshing. While paused, {@link #refresh()} returns the current snapshot
+     * without contacting Cerberus, so pollers keep running but the configuration stays frozen. A
+     * source that has not been loaded yet is still loaded once.
+     *
+     * @param paused true to pause refreshing
+     */
+    public void setPaused(final boolean paused) {
+        this.paused = paused;
+        logger.info("Refreshing of paths={} {}", paths, paused ? "paused" : "resumed");
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Bounds how long a refresh may keep sending requests, keeping the previous snapshot when the
+     * deadline passes.
+     *
+     * @param timeout Deadline measured from the start of every refresh, 0 to disable it
+     * @param unit Unit of the timeout
+     * @see #setPollDeadline(long, TimeUnit, OverrunMode)
+     */
+    public void setPollDeadline(final long timeout, final TimeUnit unit) {
+        setPollDeadline(timeout, unit, OverrunMode.KEEP_PREVIOUS);
+    }
+
+    /**
+     * Bounds how long a refresh may keep sending requests. Once the deadline has passed, every
+     * further request of the refresh fails with a {@link CerberusDeadlineExceededException} without
+     * reaching Cerberus, and the refresh is handled according to the overrun mode. A request
+     * already in flight is not interrupted, so a refresh can take at most the deadline plus the
+     * HTTP client's timeouts for one request.
+     *
+     * @param timeout Deadline measured from the start of every refresh, 0 to disable it
+     * @param unit Unit of the timeout
+     * @param overrunMode What a refresh that overruns its deadline publishes
+     * @throws IllegalArgumentException if unit or overrunMode is null or timeout is negative
+     */
+    public void setPollDeadline(
+            final long timeout, final TimeUnit unit, final OverrunMode overrunMode) {
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (overrunMode == null) {
+            throw new IllegalArgumentException("overrunMode cannot be null");
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout cannot be negative");
+        }
+        this.pollDeadlineNanos = unit.toNanos(timeout);
+        this.overrunMode = overrunMode;
+        refreshCache.setRetainResponses(timeout > 0 && overrunMode == OverrunMode.MERGE_PARTIAL);
+    }
+
+    /**
+     * Returns the poll deadline.
+     *
+     * @param unit Unit of the returned deadline
+     * @return Deadline of every refresh, or 0 if refreshes are not bounded
+     */
+    public long getPollDeadline(final TimeUnit unit) {
+        return unit.convert(pollDeadlineNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public OverrunMode getOverrunMode() {
+        return overrunMode;
+    }
+
+    /**
+     * Returns how many refreshes ran past their deadline.
+     *
+     * @return Number of overrun refreshes
+     */
+    public long getPollOverrunCount() {
+        return pollOverrunCount.sum();
+    }
+
+    /**
+     * Reads all configured paths from Cerberus and publishes the result as the current snapshot.
+     * Snapshot listeners are only notified if the loaded configuration differs from the current
+     * snapshot. If the circuit breaker rejects a request, the {@link #setPollDeadline poll
+     * deadline} passes or refreshing is {@link #setPaused(boolean) paused}, the current snapshot is
+     * returned unchanged.
+     *
+     * @return The current snapshot after the refresh
+     * @throws CallNotPermittedException if the circuit is open and nothing has been loaded yet
+     * @throws CerberusDeadlineExceededException if the deadline passed and nothing has been loaded
+     *     yet
+     */
+    public CerberusSnapshot refresh() {
+        final CerberusSnapshot current = currentSnapshot;
+        if (paused && current != null) {
+            logger.debug("Refreshing is paused, keeping snapshot version {}", current.getVersion());
+            return current;
+        }
+        return load();
+    }
+
+    /**
+     * Refreshes the source even if refreshing is paused. A refresh already in flight, from the
+     * poller, a background load or JMX, completes before this one starts.
+     *
+     * @return The current snapshot after the refresh
+     */
+    CerberusSnapshot load() {
+        loadLock.lock();
+        try {
+            return loadExclusively();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private CerberusSnapshot loadExclusively() {
+        final CerberusSpan span = tracer.startSpan(CerberusTracer.POLL, ActiveSpan.get());
+        final CerberusSpan previous = ActiveSpan.activate(span);
+        final long start = System.nanoTime();
+        final long timeout = pollDeadlineNanos;
+        final PollDeadline deadline = timeout > 0 ? new PollDeadline(start + timeout) : null;
+        activeDeadline.set(deadline);
+        CerberusTransferStats.beginPoll();
+        try {
+            span.setAttribute(CerberusSpan.PATH, String.join(",", paths));
+            final Map<String, Object> values;
+            try {
+                refreshCache.beginRefresh();
+                values = loader.load(this);
+                refreshCache.endRefresh();
+            } catch (CallNotPermittedException | CerberusDeadlineExceededException e) {
+                if (e instanceof CerberusDeadlineExceededException) {
+                    pollOverrunCount.increment();
+                }
+                final CerberusSnapshot snapshot = currentSnapshot;
+                if (snapshot == null) {
+                    throw e;
+                }
+                logger.warn(
+                        "{}, keeping snapshot version {}", e.getMessage(), snapshot.getVersion());
+                span.setAttribute(CerberusSpan.STATUS, ActiveSpan.status(e));
+                return snapshot;
+            }
+            if (deadline != null && deadline.overrun) {
+                pollOverrunCount.increment();
+                logger.warn("Poll deadline exceeded, merging partial results with previous ones");
+            }
+            final CerberusSnapshot snapshot = publishSnapshot(values);
+            lastRefreshMillis = System.currentTimeMillis();
+            span.setAttribute(CerberusSpan.STATUS, ActiveSpan.OK);
+            return snapshot;
+        } catch (RuntimeException e) {
+            failedRefreshCount.increment();
+            span.setAttribute(CerberusSpan.STATUS, ActiveSpan.status(e));
+            span.recordError(e);
+            throw e;
+        } finally {
+            final long[] transferred = CerberusTransferStats.endPoll();
+            if (transferred[1] > 0) {
+                lastPollCompressedBytes = transferred[0];
+                lastPollUncompressedBytes = transferred[1];
+                span.setAttribute(CerberusSpan.COMPRESSED_BYTES, transferred[0]);
+                span.setAttribute(CerberusSpan.UNCOMPRESSED_BYTES, transferred[1]);
+                logger.debug(
+                        "Poll received {} bytes, {} once decompressed",
+                        transferred[0],
+                        transferred[1]);
+            }
+            activeDeadline.remove();
+            lastRefreshDurationNanos = System.nanoTime() - start;
+            ActiveSpan.restore(previous);
+            span.end();
+        }
+    }
+
+    /**
+     * Returns when the source last loaded Cerberus successfully, whether or not the configuration
+     * changed.
+     *
+     * @return Epoch milliseconds of the last successful refresh, or 0 if there was none
+     */
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * Returns how long the last refresh took, successful or not.
+     *
+     * @param unit Unit of the returned duration
+     * @return Duration of the last refresh, or 0 if the source has not been refreshed yet
+     */
+    public long getLastRefreshDuration(final TimeUnit unit) {
+        return unit.convert(lastRefreshDurationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the bytes the responses of the last refresh took on the wire. Only counted when the
+     * client's HTTP transport has the interceptors of a {@link CerberusTransferStats}.
+     *
+     * @return Compressed bytes received by the last refresh that received any
+     */
+    public long getLastPollCompressedBytes() {
+        return lastPollCompressedBytes;
+    }
+
+    /**
+     * Returns the bytes of the responses of the last refresh once decompressed. Only counted when
+     * the client's HTTP transport has the interceptors of a {@link CerberusTransferStats}.
+     *
+     * @return Uncompressed bytes received by the last refresh that received any
+     */
+    public long getLastPollUncompressedBytes() {
+        return lastPollUncompressedBytes;
+    }
+
+    public long getFailedRefreshCount() {
+        return failedRefreshCount.sum();
+    }
+
+    PathTimings getPathTimings() {
+        return pathTimings;
+    }
+
+    /**
+     * Returns the last snapshot loaded from Cerberus.
+     *
+     * @return The current snapshot, or null if the source has not been refreshed yet
+     */
+    public CerberusSnapshot getCurrentSnapshot() {
+        return currentSnapshot;
+    }
+
+    /**
+     * Registers a listener to be notified of every new snapshot.
+     *
+     * @param listener Listener to register
+     */
+    public void addSnapshotListener(final CerberusSnapshotListener listener) {
+        snapshotListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered snapshot listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeSnapshotListener(final CerberusSnapshotListener listener) {
+        snapshotListeners.remove(listener);
+    }
+
+    /**
+     * Returns a Reactive Streams publisher of this source's snapshots that signals subscribers on
+     * the common fork-join pool.
+     *
+     * @return Snapshot publisher
+     */
+    public Publisher<CerberusSnapshot> snapshots() {
+        return snapshots(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a Reactive Streams publisher of this source's snapshots.
+     *
+     * @param executor Executor on which subscribers are signalled
+     * @return Snapshot publisher
+     */
+    public Publisher<CerberusSnapshot> snapshots(final Executor executor) {
+        return new CerberusSnapshotPublisher(this, executor);
+    }
+
+    /**
+     * Returns a typed view of a property that is parsed once per published snapshot.
+     *
+     * @param key Property name
+     * @param parser Converts the raw value, e.g. {@link CerberusProperty#INTEGER}
+     * @param defaultValue Value used when the property is missing or cannot be parsed
+     * @param <T> Type of the property value
+     * @return Typed property, updated every time a new snapshot is published
+     */
+    public <T> CerberusProperty<T> getProperty(
+            final String key, final Function<String, T> parser, final T defaultValue) {
+        final CerberusProperty<T> property = new CerberusProperty<>(key, parser, defaultValue);
+        synchronized (this) {
+            final CerberusSnapshot snapshot = currentSnapshot;
+            if (snapshot != null) {
+                property.update(snapshot);
+            }
+            properties.computeIfAbsent(key, k -> new ArrayList<>(1)).add(property);
+        }
+        return property;
+    }
+
+    /**
+     * Returns the handle bound to a key, for secrets read on hot paths such as HMAC keys or API
+     * tokens. The handle holds the key's value in a volatile field that is only rewritten when a
+     * published snapshot changes that key, so {@link CerberusProperty#get()} is a single field read
+     * with no hashing. Every call for the same key returns the same handle.
+     *
+     * @param key Property name
+     * @return Handle of the property, whose value is null while the key is missing
+     * @throws IllegalArgumentException if key is null
+     */
+    public CerberusProperty<String> bind(final String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        synchronized (this) {
+            CerberusProperty<String> handle = boundHandles.get(key);
+            if (handle == null) {
+                handle = getStringProperty(key, null);
+                boundHandles.put(key, handle);
+            }
+            return handle;
+        }
+    }
+
+    public CerberusProperty<String> getStringProperty(final String key, final String defaultValue) {
+        return getProperty(key, Function.identity(), defaultValue);
+    }
+
+    public CerberusProperty<Integer> getIntProperty(final String key, final int defaultValue) {
+        return getProperty(key, CerberusProperty.INTEGER, defaultValue);
+    }
+
+    public CerberusProperty<Long> getLongProperty(final String key, final long defaultValue) {
+        return getProperty(key, CerberusProperty.LONG, defaultValue);
+    }
+
+    public CerberusProperty<Boolean> getBooleanProperty(
+            final String key, final boolean defaultValue) {
+        return getProperty(key, CerberusProperty.BOOLEAN, defaultValue);
+    }
+
+    public CerberusProperty<Duration> getDurationProperty(
+            final String key, final Duration defaultValue) {
+        return getProperty(key, CerberusProperty.DURATION, defaultValue);
+    }
+
+    public CerberusProperty<List<String>> getListProperty(
+            final String key, final List<String> defaultValue) {
+        return getProperty(key, CerberusProperty.LIST, defaultValue);
+    }
+
+    private CerberusSnapshot publishSnapshot(final Map<String, Object> config) {
+        final CerberusSnapshot previous;
+        final CerberusSnapshot snapshot;
+        synchronized (this) {
+            previous = currentSnapshot;
+            snapshot =
+                    previous == null
+                            ? CerberusSnapshot.initial(config, offHeapValues)
+                            : previous.next(config, offHeapValues);
+            if (snapshot == previous) {
+                return snapshot;
+            }
+            updateProperties(snapshot);
+            currentSnapshot = snapshot;
+        }
+        for (final CerberusSnapshotListener listener : snapshotListeners) {
+            try {
+                listener.onSnapshot(snapshot);
+            } catch (RuntimeException e) {
+                logger.error("Snapshot listener failed for version {}", snapshot.getVersion(), e);
+            }
+        }
+        if (previous != null && previous.needsRelease()) {
+            final long delay = releaseDelayNanos;
+            if (delay == 0) {
+                previous.release(snapshot);
+            } else {
+                RELEASER.schedule(() -> previous.release(snapshot), delay, TimeUnit.NANOSECONDS);
+            }
+        }
+        return snapshot;
+    }
+
+    /** Updates the properties of the keys a snapshot changed, walking the smaller of both sets. */
+    private void updateProperties(final CerberusSnapshot snapshot) {
+        final Set<String> changedKeys = snapshot.getChangedKeys();
+        if (changedKeys.size() <= properties.size()) {
+            for (final String key : changedKeys) {
+                final List<CerberusProperty<?>> bound = properties.get(key);
+                if (bound != null) {
+                    bound.forEach(property -> property.update(snapshot));
+                }
+            }
+        } else {
+            properties.forEach(
+                    (key, bound) -> {
+                        if (changedKeys.contains(key)) {
+                            bound.forEach(property -> property.update(snapshot));
+                        }
+                    });
+        }
+    }
+
+    /** What a refresh that overruns its deadline publishes. */
+    public enum OverrunMode {
+
+        /** Abandon the refresh and keep the current snapshot. */
+        KEEP_PREVIOUS,
+
+        /**
+         * Publish the responses received before the deadline, with the previous response of every
+         * path that could not be requested anymore. A path without a previous response abandons the
+         * refresh as with {@link #KEEP_PREVIOUS}.
+         */
+        MERGE_PARTIAL
+    }
+
+    /** Priority of a path when loading a source in two steps. */
+    public enum PathPriority {
+
+        /** Loaded by {@link #refreshCritical()}, before the source is considered ready. */
+        CRITICAL,
+
+        /** Deferred by {@link #refreshCritical()} and loaded by the following refresh. */
+        BACKGROUND
+    }
+
+    private static final class PollDeadline {
+
+        private final long deadlineNanos;
+
+        private boolean overrun;
+
+        private PollDeadline(final long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - deadlineNanos >= 0;
+        }
+    }
+}
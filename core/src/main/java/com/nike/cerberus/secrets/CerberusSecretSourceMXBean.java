@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of a {@link CerberusSecretSource}, registered through {@link
+ * CerberusSecretSourceManagement}.
+ */
+public interface CerberusSecretSourceMXBean {
+
+    /** @return Cerberus paths of the source */
+    String[] getPaths();
+
+    /** @return Milliseconds since the last successful refresh, or -1 if there was none */
+    long getSnapshotAgeMillis();
+
+    /** @return Version of the current snapshot, or 0 if nothing has been loaded yet */
+    long getSnapshotVersion();
+
+    /** @return Number of keys in the current snapshot */
+    int getKeyCount();
+
+    /** @return Duration of the last refresh in milliseconds, successful or not */
+    long getLastPollDurationMillis();
+
+    /** @return Bytes the responses of the last poll took on the wire */
+    long getLastPollCompressedBytes();
+
+    /** @return Bytes of the responses of the last poll once decompressed */
+    long getLastPollUncompressedBytes();
+
+    /** @return Number of refreshes that failed */
+    long getFailedPollCount();
+
+    /** @return Number of refreshes that ran past their deadline */
+    long getPollOverrunCount();
+
+    /** @return Whether refreshing is paused */
+    boolean isPaused();
+
+    /** @return The paths whose last request took longest, slowest first */
+    String[] getSlowestPaths();
+
+    /** @return Number of failed requests of every path that failed at least once */
+    Map<String, Long> getPathErrorCounts();
+
+    /**
+     * Refreshes the source now, even if refreshing is paused.
+     *
+     * @return Version of the current snapshot after the refresh
+     */
+    long refresh();
+
+    /** Stops refreshing the source; pollers keep the current snapshot. */
+    void pause();
+
+    /** Resumes refreshing the source. */
+    void resume();
+
+    /** @return Request timings of every path, one line per path */
+    String dumpPathTimings();
+
+    /** Forgets the request timings and error counts collected so far. */
+    void resetPathTimings();
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes a {@link CerberusSecretSource} over JMX, so slow or stuck sources can be diagnosed and
+ * controlled on a live host.
+ *
+ * <p>Registration is explicit because sources have no lifecycle of their own; unregister the source
+ * when it is discarded.
+ *
+ * <pre>{@code
+ * CerberusSecretSourceManagement management = CerberusSecretSourceManagement.register(source);
+ * ...
+ * management.unregister();
+ * }</pre>
+ */
+public class CerberusSecretSourceManagement implements CerberusSecretSourceMXBean {
+
+    /** JMX domain of the registered sources */
+    public static final String DOMAIN = "com.nike.cerberus";
+
+    /** Number of paths reported by {@link #getSlowestPaths()} */
+    public static final int SLOWEST_PATH_COUNT = 10;
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(CerberusSecretSourceManagement.class);
+
+    private final CerberusSecretSource source;
+
+    private final MBeanServer server;
+
+    private final ObjectName name;
+
+    private CerberusSecretSourceManagement(
+            final CerberusSecretSource source, final MBeanServer server, final ObjectName name) {
+        this.source = source;
+        this.server = server;
+        this.name = name;
+    }
+
+    /**
+     * Registers the source with the platform MBean server under a name derived from its class and
+     * paths.
+     *
+     * @param source Source to expose
+     * @return Handle of the registered MBean
+     * @throws IllegalArgumentException if source is null
+     * @throws IllegalStateException if an MBean with the same name is already registered
+     */
+    public static CerberusSecretSourceManagement register(final CerberusSecretSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        final String paths = String.join(",", new TreeSet<>(source.getPaths()));
+        return register(source, source.getClass().getSimpleName() + " " + paths);
+    }
+
+    /**
+     * Registers the source with the platform MBean server.
+     *
+     * @param source Source to expose
+     * @param name Value of the name key of the MBean's object name
+     * @return Handle of the registered MBean
+     * @throws IllegalArgumentException if source or name is null
+     * @throws IllegalStateException if an MBean with the same name is already registered
+     */
+    public static CerberusSecretSourceManagement register(
+            final CerberusSecretSource source, final String name) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null");
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName =
+                    new ObjectName(
+                            DOMAIN
+                                    + ":type="
+                                    + CerberusSecretSource.class.getSimpleName()
+                                    + ",name="
+                                    + ObjectName.quote(name));
+            final CerberusSecretSourceManagement management =
+                    new CerberusSecretSourceManagement(source, server, objectName);
+            server.registerMBean(management, objectName);
+            logger.info("Registered MBean {}", objectName);
+            return management;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register MBean for " + name, e);
+        }
+    }
+
+    /** Unregisters the MBean. Has no effect if it is not registered anymore. */
+    public void unregister() {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Failed to unregister MBean {}", name, e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return name;
+    }
+
+    public CerberusSecretSource getSource() {
+        return source;
+    }
+
+    @Override
+    public String[] getPaths() {
+        return new TreeSet<>(source.getPaths()).toArray(new String[0]);
+    }
+
+    @Override
+    public long getSnapshotAgeMillis() {
+        final long lastRefresh = source.getLastRefreshMillis();
+        return lastRefresh == 0 ? -1 : System.currentTimeMillis() - lastRefresh;
+    }
+
+    @Override
+    public long getSnapshotVersion() {
+        final CerberusSnapshot snapshot = source.getCurrentSnapshot();
+        return snapshot == null ? 0 : snapshot.getVersion();
+    }
+
+    @Override
+    public int getKeyCount() {
+        final CerberusSnapshot snapshot = source.getCurrentSnapshot();
+        return snapshot == null ? 0 : snapshot.getValues().size();
+    }
+
+    @Override
+    public long getLastPollDurationMillis() {
+        return source.getLastRefreshDuration(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getLastPollCompressedBytes() {
+        return source.getLastPollCompressedBytes();
+    }
+
+    @Override
+    public long getLastPollUncompressedBytes() {
+        return source.getLastPollUncompressedBytes();
+    }
+
+    @Override
+    public long getFailedPollCount() {
+        return source.getFailedRefreshCount();
+    }
+
+    @Override
+    public long getPollOverrunCount() {
+        return source.getPollOverrunCount();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return source.isPaused();
+    }
+
+    @Override
+    public String[] getSlowestPaths() {
+        return source.getPathTimings().getSlowestPaths(SLOWEST_PATH_COUNT).toArray(new String[0]);
+    }
+
+    @Override
+    public Map<String, Long> getPathErrorCounts() {
+        return source.getPathTimings().getErrorCounts();
+    }
+
+    @Override
+    public long refresh() {
+        logger.info("Refresh of {} requested over JMX", name);
+        return source.load().getVersion();
+    }
+
+    @Override
+    public void pause() {
+        source.setPaused(true);
+    }
+
+    @Override
+    public void resume() {
+        source.setPaused(false);
+    }
+
+    @Override
+    public String dumpPathTimings() {
+        return source.getPathTimings().dump();
+    }
+
+    @Override
+    public void resetPathTimings() {
+        source.getPathTimings().reset();
+    }
+}
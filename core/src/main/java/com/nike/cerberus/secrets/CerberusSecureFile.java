@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.CerberusClientException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Objects;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handle to a Cerberus secure file exposed by {@link SecureFileSecretLoader}.
+ *
+ * <p>The content is only downloaded the first time it is accessed. Downloaded bytes are held
+ * through a soft reference so the JVM can reclaim them under memory pressure; they are simply read
+ * again on the next access. Alternatively the content can be written once to a temporary file
+ * readable only by the current user, after which it no longer occupies the heap. The temporary file
+ * is deleted once the release delay has passed after a snapshot without this handle superseded the
+ * ones holding it, and at the latest when the JVM exits.
+ */
+public class CerberusSecureFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusSecureFile.class);
+
+    private static final Set<PosixFilePermission> OWNER_ONLY =
+            PosixFilePermissions.fromString("rw-------");
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY =
+            PosixFilePermissions.fromString("rwx------");
+
+    /** Directory holding the temporary files of this JVM, created on first use */
+    private static Path tempDirectory;
+
+    private final CerberusSecretSource source;
+
+    private final String path;
+
+    private final long sizeInBytes;
+
+    private final long maxSizeInBytes;
+
+    private final Object lastUpdated;
+
+    private SoftReference<byte[]> content;
+
+    private Path tempFile;
+
+    /**
+     * Constructor
+     *
+     * @param source Source through which the file is downloaded
+     * @param path Full Cerberus path of the file
+     * @param sizeInBytes Size of the file as reported by the file listing
+     * @param maxSizeInBytes Maximum number of bytes that may be loaded for this file
+     * @param lastUpdated Last modification marker reported by the file listing
+     */
+    CerberusSecureFile(
+            final CerberusSecretSource source,
+            final String path,
+            final long sizeInBytes,
+            final long maxSizeInBytes,
+            final Object lastUpdated) {
+        this.source = source;
+        this.path = path;
+        this.sizeInBytes = sizeInBytes;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Returns the full Cerberus path of the file.
+     *
+     * @return Cerberus path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the size of the file as reported by Cerberus.
+     *
+     * @return Size in bytes
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Returns the content of the file, downloading it if it is neither held in memory nor already
+     * written to a temporary file.
+     *
+     * @return File content
+     * @throws CerberusClientException if the downloaded content exceeds the configured size cap
+     * @throws UncheckedIOException if the temporary file cannot be read
+     */
+    public synchronized byte[] getBytes() {
+        byte[] bytes = content == null ? null : content.get();
+        if (bytes == null && tempFile != null && Files.exists(tempFile)) {
+            try {
+                return Files.readAllBytes(tempFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read secure file " + path, e);
+            }
+        }
+        if (bytes == null) {
+            bytes = source.readFileAsBytes(path);
+            if (bytes.length > maxSizeInBytes) {
+                throw new CerberusClientException(
+                        String.format(
+                                "Secure file %s is %d bytes which exceeds the maximum of %d bytes",
+                                path, bytes.length, maxSizeInBytes));
+            }
+            content = new SoftReference<>(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns a stream over the content of the file.
+     *
+     * @return Input stream over the file content
+     */
+    public InputStream openStream() {
+        return new ByteArrayInputStream(getBytes());
+    }
+
+    /**
+     * Writes the content of the file to a temporary file readable only by the current user and
+     * releases the in-memory copy. The temporary file is written once, in a directory only
+     * accessible by the current user.
+     *
+     * @return Path of the temporary file
+     * @throws UncheckedIOException if the temporary file cannot be written
+     */
+    public synchronized Path toTempFile() {
+        if (tempFile == null || !Files.exists(tempFile)) {
+            try {
+                final Path directory = tempDirectory();
+                final Path file =
+                        isPosix()
+                                ? Files.createTempFile(
+                                        directory,
+                                        "cerberus-",
+                                        ".secure",
+                                        PosixFilePermissions.asFileAttribute(OWNER_ONLY))
+                                : Files.createTempFile(directory, "cerberus-", ".secure");
+                Files.write(file, getBytes());
+                tempFile = file;
+                content = null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write secure file " + path, e);
+            }
+        }
+        return tempFile;
+    }
+
+    /** Deletes the temporary file, if any, once no snapshot holds this handle anymore. */
+    synchronized void deleteTempFile() {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            logger.warn("Unable to delete temporary copy of secure file {}", path, e);
+        }
+        tempFile = null;
+    }
+
+    private static synchronized Path tempDirectory() throws IOException {
+        if (tempDirectory == null || !Files.isDirectory(tempDirectory)) {
+            final Path directory =
+                    isPosix()
+                            ? Files.createTempDirectory(
+                                    "cerberus-secure-files-",
+                                    PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY))
+                            : Files.createTempDirectory("cerberus-secure-files-");
+            if (tempDirectory == null) {
+                // one hook for all files instead of a deleteOnExit entry per file
+                Runtime.getRuntime()
+                        .addShutdownHook(
+                                new Thread(
+                                        CerberusSecureFile::deleteTempDirectory,
+                                        "cerberus-secure-file-cleanup"));
+            }
+            tempDirectory = directory;
+        }
+        return tempDirectory;
+    }
+
+    private static synchronized void deleteTempDirectory() {
+        if (tempDirectory == null || !Files.isDirectory(tempDirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDirectory)) {
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(tempDirectory);
+        } catch (IOException e) {
+            logger.warn("Unable to delete secure file directory {}", tempDirectory, e);
+        }
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Returns true if this handle still describes the given listing entry, in which case it can be
+     * reused instead of downloading the file again.
+     */
+    boolean isCurrent(final long listedSize, final Object listedLastUpdated) {
+        return sizeInBytes == listedSize && Objects.equals(lastUpdated, listedLastUpdated);
+    }
+
+    @Override
+    public String toString() {
+        return "CerberusSecureFile{path=" + path + ", sizeInBytes=" + sizeInBytes + "}";
+    }
+}
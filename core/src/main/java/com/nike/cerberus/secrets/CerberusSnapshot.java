@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable view of the configuration loaded from Cerberus by a single refresh of a configuration
+ * source.
+ *
+ * <p>Each snapshot also carries the keys that were added, changed or removed compared to the
+ * snapshot it replaced, so consumers can react to per-key deltas without diffing the maps
+ * themselves.
+ */
+public final class CerberusSnapshot {
+
+    private final Map<String, Object> values;
+
+    private final Set<String> changedKeys;
+
+    private final long version;
+
+    private final long timestamp;
+
+    private CerberusSnapshot(
+            final Map<String, Object> values,
+            final Set<String> changedKeys,
+            final long version,
+            final long timestamp) {
+        this.values = values;
+        this.changedKeys = changedKeys;
+        this.version = version;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Creates the first snapshot of a source, in which every key is considered changed.
+     *
+     * @param values Configuration loaded from Cerberus
+     * @param offHeap Whether String values should be stored outside of the Java heap
+     * @return The initial snapshot
+     */
+    static CerberusSnapshot initial(final Map<String, Object> values, final boolean offHeap) {
+        final Map<String, Object> copy = copyOf(values, offHeap);
+        return new CerberusSnapshot(
+                copy, Collections.unmodifiableSet(copy.keySet()), 1, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates the snapshot that follows this one, or returns this snapshot if the newly loaded
+     * values are identical to the current ones.
+     *
+     * @param newValues Configuration loaded from Cerberus
+     * @param offHeap Whether String values should be stored outside of the Java heap
+     * @return The next snapshot, or this instance if nothing changed
+     */
+    CerberusSnapshot next(final Map<String, Object> newValues, final boolean offHeap) {
+        final Set<String> changed = new HashSet<>();
+        for (final Map.Entry<String, Object> entry : newValues.entrySet()) {
+            if (!values.containsKey(entry.getKey())
+                    || !Objects.equals(entry.getValue(), values.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (final String key : values.keySet()) {
+            if (!newValues.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        if (changed.isEmpty()) {
+            return this;
+        }
+        return new CerberusSnapshot(
+                copyOf(newValues, offHeap),
+                Collections.unmodifiableSet(changed),
+                version + 1,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Returns whether {@link #release(CerberusSnapshot)} has anything to do for this snapshot.
+     *
+     * @return true if values are stored off heap or include secure files
+     */
+    boolean needsRelease() {
+        if (values instanceof OffHeapValueMap) {
+            return true;
+        }
+        for (final Object value : values.values()) {
+            if (value instanceof CerberusSecureFile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Overwrites the values of this snapshot with zeros if they are stored outside of the Java
+     * heap, and deletes the temporary copies of the secure files the newer snapshot no longer
+     * holds. Called once the release delay after the snapshot was superseded has passed; reading
+     * its off-heap values afterwards fails with an {@link IllegalStateException}.
+     *
+     * @param newer The snapshot that superseded this one
+     */
+    void release(final CerberusSnapshot newer) {
+        final Map<String, Object> heapValues =
+                values instanceof OffHeapValueMap
+                        ? ((OffHeapValueMap) values).getHeapValues()
+                        : values;
+        for (final Map.Entry<String, Object> entry : heapValues.entrySet()) {
+            if (entry.getValue() instanceof CerberusSecureFile
+                    && newer.values.get(entry.getKey()) != entry.getValue()) {
+                ((CerberusSecureFile) entry.getValue()).deleteTempFile();
+            }
+        }
+        if (values instanceof OffHeapValueMap) {
+            ((OffHeapValueMap) values).zeroize();
+        }
+    }
+
+    private static Map<String, Object> copyOf(
+            final Map<String, Object> values, final boolean offHeap) {
+        return offHeap
+                ? new OffHeapValueMap(values)
+                : Collections.unmodifiableMap(new HashMap<>(values));
+    }
+
+    /**
+     * Combines this snapshot with a newer one so that a consumer that skipped the intermediate
+     * snapshot still sees every key that changed in between.
+     *
+     * @param newer A snapshot published after this one
+     * @return The newer snapshot carrying the changed keys of both
+     */
+    CerberusSnapshot mergeInto(final CerberusSnapshot newer) {
+        if (newer.version <= version) {
+            return this;
+        }
+        final Set<String> changed = new HashSet<>(changedKeys);
+        changed.addAll(newer.changedKeys);
+        return new CerberusSnapshot(
+                newer.values, Collections.unmodifiableSet(changed), newer.version, newer.timestamp);
+    }
+
+    /**
+     * Returns the configuration of this snapshot.
+     *
+     * @return Unmodifiable map of property name to value
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the value of a single property.
+     *
+     * @param key Property name
+     * @return The value, or null if the property is not present in this snapshot
+     */
+    public Object get(final String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Returns the keys that were added, changed or removed compared to the previous snapshot.
+     *
+     * @return Unmodifiable set of property names
+     */
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    /**
+     * Returns the version of this snapshot, starting at 1 and incremented every time the loaded
+     * configuration changes.
+     *
+     * @return Snapshot version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the time this snapshot was created.
+     *
+     * @return Milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reactive Streams {@link Publisher} of the snapshots published by a Cerberus configuration source.
+ *
+ * <p>Every subscriber first receives the current snapshot (if the source has loaded one) and then
+ * each new snapshot as it is published. Signals are delivered on the supplied {@link Executor},
+ * never on the polling thread. When a subscriber has no outstanding demand, only the latest
+ * snapshot is retained; its {@link CerberusSnapshot#getChangedKeys() changed keys} are merged with
+ * those of the skipped snapshots so no delta is lost.
+ */
+public class CerberusSnapshotPublisher implements Publisher<CerberusSnapshot> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CerberusSnapshotPublisher.class);
+
+    private final CerberusSecretSource source;
+
+    private final Executor executor;
+
+    /**
+     * Constructor
+     *
+     * @param source The configuration source whose snapshots are published
+     * @param executor Executor on which subscribers are signalled
+     * @throws IllegalArgumentException if source or executor is null
+     */
+    public CerberusSnapshotPublisher(final CerberusSecretSource source, final Executor executor) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        this.source = source;
+        this.executor = executor;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void subscribe(final Subscriber<? super CerberusSnapshot> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber cannot be null");
+        }
+        new SnapshotSubscription(subscriber).start();
+    }
+
+    /**
+     * Subscription that conflates snapshots while the subscriber has no demand and drains them
+     * serially on the executor.
+     */
+    private final class SnapshotSubscription
+            implements Subscription, CerberusSnapshotListener, Runnable {
+
+        private final Subscriber<? super CerberusSnapshot> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicReference<CerberusSnapshot> pending = new AtomicReference<>();
+
+        /** Starts at one so that nothing is drained before onSubscribe has been signalled. */
+        private final AtomicInteger wip = new AtomicInteger(1);
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable error;
+
+        private SnapshotSubscription(final Subscriber<? super CerberusSnapshot> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            executeDrain(
+                    () -> {
+                        try {
+                            subscriber.onSubscribe(this);
+                        } catch (Throwable t) {
+                            logger.error("onSubscribe() threw, cancelling subscription", t);
+                            cancelled = true;
+                            return;
+                        }
+                        source.addSnapshotListener(this);
+                        final CerberusSnapshot current = source.getCurrentSnapshot();
+                        if (current != null) {
+                            offer(current);
+                        }
+                        run();
+                    });
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                error =
+                        new IllegalArgumentException(
+                                "Rule 3.9: request must be positive, but was " + n);
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            source.removeSnapshotListener(this);
+            pending.set(null);
+        }
+
+        @Override
+        public void onSnapshot(final CerberusSnapshot snapshot) {
+            offer(snapshot);
+            schedule();
+        }
+
+        private void offer(final CerberusSnapshot snapshot) {
+            pending.accumulateAndGet(
+                    snapshot,
+                    (previous, next) -> previous == null ? next : previous.mergeInto(next));
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executeDrain(this);
+            }
+        }
+
+        private void executeDrain(final Runnable drain) {
+            try {
+                executor.execute(drain);
+            } catch (RuntimeException e) {
+                logger.error("Unable to schedule snapshot delivery, cancelling subscription", e);
+                cancel();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                final Throwable failure = error;
+                if (failure != null) {
+                    cancel();
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (requested.get() > 0) {
+                    final CerberusSnapshot snapshot = pending.getAndSet(null);
+                    if (snapshot != null) {
+                        if (requested.get() != Long.MAX_VALUE) {
+                            requested.decrementAndGet();
+                        }
+                        try {
+                            subscriber.onNext(snapshot);
+                        } catch (Throwable t) {
+                            logger.error("onNext() threw, cancelling subscription", t);
+                            cancel();
+                            return;
+                        }
+                        continue;
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+/**
+ * Span opened by a {@link CerberusTracer} for a poll or a single Cerberus request.
+ *
+ * <p>Implementations adapt a tracing library; every method must be cheap and must not throw.
+ */
+public interface CerberusSpan {
+
+    /** Attribute holding the Cerberus path of a request, or the polled paths of a poll */
+    String PATH = "cerberus.path";
+
+    /** Attribute holding the depth of the requested path below its SDB category */
+    String DEPTH = "cerberus.depth";
+
+    /** Attribute holding the approximate size of the response in bytes */
+    String BYTES = "cerberus.bytes";
+
+    /**
+     * Attribute holding the outcome: ok, rejected, deadline, error or the HTTP status code of a
+     * failure
+     */
+    String STATUS = "cerberus.status";
+
+    /** Attribute of a poll holding the bytes its responses took on the wire */
+    String COMPRESSED_BYTES = "cerberus.compressed_bytes";
+
+    /** Attribute of a poll holding the bytes of its responses once decompressed */
+    String UNCOMPRESSED_BYTES = "cerberus.uncompressed_bytes";
+
+    /** Span that records nothing */
+    CerberusSpan NOOP =
+            new CerberusSpan() {
+                @Override
+                public void setAttribute(final String key, final String value) {}
+
+                @Override
+                public void setAttribute(final String key, final long value) {}
+
+                @Override
+                public void recordError(final Throwable error) {}
+
+                @Override
+                public void end() {}
+            };
+
+    /**
+     * Sets a string attribute.
+     *
+     * @param key Attribute name
+     * @param value Attribute value
+     */
+    void setAttribute(String key, String value);
+
+    /**
+     * Sets a numeric attribute.
+     *
+     * @param key Attribute name
+     * @param value Attribute value
+     */
+    void setAttribute(String key, long value);
+
+    /**
+     * Marks the span as failed.
+     *
+     * @param error Cause of the failure
+     */
+    void recordError(Throwable error);
+
+    /** Ends the span. No method is called on it afterwards. */
+    void end();
+}
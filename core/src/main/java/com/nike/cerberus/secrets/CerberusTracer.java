@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+/**
+ * Tracing hook of a {@link CerberusSecretSource}.
+ *
+ * <p>A span named {@value #POLL} is opened for every refresh, with a child span per Cerberus
+ * request named after the request ({@value #READ}, {@value #LIST}, {@value #LIST_FILES}, {@value
+ * #READ_FILE}) and, when the credentials provider is wrapped in a {@link
+ * TracingCerberusCredentialsProvider}, {@value #AUTH}. This interface has no dependencies so that
+ * any tracing library can be plugged in; see {@link OpenTelemetryCerberusTracer}.
+ */
+@FunctionalInterface
+public interface CerberusTracer {
+
+    /** Name of the span covering a whole refresh */
+    String POLL = "cerberus.poll";
+
+    /** Name of the span covering the read of a path */
+    String READ = "cerberus.read";
+
+    /** Name of the span covering the listing of a folder */
+    String LIST = "cerberus.list";
+
+    /** Name of the span covering the listing of secure files */
+    String LIST_FILES = "cerberus.listFiles";
+
+    /** Name of the span covering the download of a secure file */
+    String READ_FILE = "cerberus.readFile";
+
+    /** Name of the span covering obtaining credentials */
+    String AUTH = "cerberus.auth";
+
+    /** Tracer that records nothing */
+    CerberusTracer NOOP = (name, parent) -> CerberusSpan.NOOP;
+
+    /**
+     * Starts a span.
+     *
+     * @param name Span name
+     * @param parent Enclosing span, or null if there is none
+     * @return The started span
+     */
+    CerberusSpan startSpan(String name, CerberusSpan parent);
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import cerberus.okhttp3.Interceptor;
+import cerberus.okhttp3.Response;
+import cerberus.okhttp3.ResponseBody;
+import cerberus.okio.Buffer;
+import cerberus.okio.BufferedSource;
+import cerberus.okio.ForwardingSource;
+import cerberus.okio.Okio;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes Cerberus responses take on the wire and once decompressed.
+ *
+ * <p>OkHttp asks for gzip and decompresses responses transparently, as long as the request does not
+ * set its own Accept-Encoding header. The {@link #networkInterceptor() network interceptor} sees
+ * the compressed body and the {@link #applicationInterceptor() application interceptor} the
+ * decompressed one. Bytes are counted as the body is read, so no body is buffered to be measured;
+ * bytes of a body that is not read are not counted.
+ *
+ * <p>Requests run on the thread that sends them, so the bytes of every request a source sends while
+ * it refreshes are also attributed to that refresh.
+ */
+public final class CerberusTransferStats {
+
+    private static final ThreadLocal<long[]> POLL = new ThreadLocal<>();
+
+    private final LongAdder responseCount = new LongAdder();
+
+    private final LongAdder compressedBytes = new LongAdder();
+
+    private final LongAdder uncompressedBytes = new LongAdder();
+
+    /**
+     * Returns the interceptor counting compressed bytes, to be added with {@code
+     * OkHttpClient.Builder#addNetworkInterceptor}.
+     *
+     * @return Network interceptor
+     */
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            return counting(chain.proceed(chain.request()), compressedBytes, 0);
+        };
+    }
+
+    /**
+     * Returns the interceptor counting decompressed bytes, to be added with {@code
+     * OkHttpClient.Builder#addInterceptor}.
+     *
+     * @return Application interceptor
+     */
+    public Interceptor applicationInterceptor() {
+        return chain -> {
+            final Response response = chain.proceed(chain.request());
+            responseCount.increment();
+            return counting(response, uncompressedBytes, 1);
+        };
+    }
+
+    public long getResponseCount() {
+        return responseCount.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /** Starts attributing the bytes received on the current thread to a poll. */
+    static void beginPoll() {
+        POLL.set(new long[2]);
+    }
+
+    /**
+     * Stops attributing bytes to the poll of the current thread.
+     *
+     * @return Compressed and uncompressed bytes received during the poll
+     */
+    static long[] endPoll() {
+        final long[] transferred = POLL.get();
+        POLL.remove();
+        return transferred == null ? new long[2] : transferred;
+    }
+
+    /**
+     * Wraps the body of a response so that the bytes read from it are added to the given total and
+     * to the poll of the current thread.
+     */
+    private static Response counting(
+            final Response response, final LongAdder total, final int pollIndex) {
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        // the body is read on the thread that sent the request, while its poll is still running
+        final long[] poll = POLL.get();
+        final BufferedSource source =
+                Okio.buffer(
+                        new ForwardingSource(body.source()) {
+                            @Override
+                            public long read(final Buffer sink, final long byteCount)
+                                    throws IOException {
+                                final long read = super.read(sink, byteCount);
+                                if (read > 0) {
+                                    total.add(read);
+                                    if (poll != null) {
+                                        poll[pollIndex] += read;
+                                    }
+                                }
+                                return read;
+                            }
+                        });
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), source))
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loader that reads each path of a source and keys properties exactly the same way they are in
+ * Cerberus.
+ */
+public class FlatSecretLoader implements CerberusSecretLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlatSecretLoader.class);
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Object> load(final CerberusSecretSource source) {
+        final Map<String, Object> config = new HashMap<>();
+        for (final String path : source.getPaths()) {
+            if (source.isDeferred(path)) {
+                logger.debug("Deferring cerberus path '{}'", path);
+                continue;
+            }
+            logger.debug("poll: reading cerberus path '{}'...", path);
+            final CerberusResponse cerberusResponse = source.read(path);
+            config.putAll(cerberusResponse.getData());
+        }
+        return config;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of Cerberus folder listings, refreshed independently of the leaf values.
+ *
+ * <p>The whole cache is dropped once the refresh interval has elapsed or after the configured
+ * number of polls, whichever comes first. A value of zero disables the respective trigger; with
+ * both disabled nothing is cached and every poll lists every folder.
+ */
+class FolderStructureCache {
+
+    private final Map<String, List<String>> listings = new ConcurrentHashMap<>();
+
+    private volatile long refreshIntervalNanos;
+
+    private volatile int refreshPolls;
+
+    private long lastRefreshNanos = System.nanoTime();
+
+    private int pollsSinceRefresh;
+
+    void setRefreshIntervalNanos(final long refreshIntervalNanos) {
+        this.refreshIntervalNanos = refreshIntervalNanos;
+    }
+
+    long getRefreshIntervalNanos() {
+        return refreshIntervalNanos;
+    }
+
+    void setRefreshPolls(final int refreshPolls) {
+        this.refreshPolls = refreshPolls;
+    }
+
+    int getRefreshPolls() {
+        return refreshPolls;
+    }
+
+    boolean isEnabled() {
+        return refreshIntervalNanos > 0 || refreshPolls > 0;
+    }
+
+    /** Called at the start of every poll; drops the cached structure when it is due. */
+    synchronized void beginPoll() {
+        final long now = System.nanoTime();
+        final boolean intervalElapsed =
+                refreshIntervalNanos > 0 && now - lastRefreshNanos >= refreshIntervalNanos;
+        final boolean pollsElapsed = refreshPolls > 0 && pollsSinceRefresh >= refreshPolls;
+        if (!isEnabled() || intervalElapsed || pollsElapsed) {
+            listings.clear();
+            lastRefreshNanos = now;
+            pollsSinceRefresh = 0;
+        }
+        pollsSinceRefresh++;
+    }
+
+    /** Drops the cached structure so that the next traversal lists every folder again. */
+    synchronized void invalidate() {
+        listings.clear();
+        lastRefreshNanos = System.nanoTime();
+        pollsSinceRefresh = 0;
+    }
+
+    boolean isEmpty() {
+        return listings.isEmpty();
+    }
+
+    List<String> get(final String folder) {
+        return listings.get(folder);
+    }
+
+    void put(final String folder, final List<String> keys) {
+        if (isEnabled()) {
+            listings.put(folder, keys);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.CerberusServerException;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loader that recursively traverses one or more full Cerberus safe deposit boxes.
+ *
+ * <p>Properties are keyed using the full path with each node separated with a period with the
+ * property name being appended to the end
+ *
+ * <p>Ex. app/myApplication/testPath/myProperty will be available as
+ * app.myApplication.testPath.myProperty
+ */
+public class NamespacedSecretLoader implements CerberusSecretLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamespacedSecretLoader.class);
+
+    private volatile CerberusPathFilter pathFilter = CerberusPathFilter.ACCEPT_ALL;
+
+    private final FolderStructureCache structureCache = new FolderStructureCache();
+
+    /**
+     * Sets the filter deciding which folders are listed and which leaves are read. Paths rejected
+     * by the filter are pruned before any request is made for them.
+     *
+     * @param pathFilter Path filter. May not be null.
+     * @throws IllegalArgumentException if pathFilter is null
+     */
+    public void setPathFilter(final CerberusPathFilter pathFilter) {
+        if (pathFilter == null) {
+            throw new IllegalArgumentException("pathFilter cannot be null");
+        }
+        this.pathFilter = pathFilter;
+    }
+
+    public CerberusPathFilter getPathFilter() {
+        return pathFilter;
+    }
+
+    /**
+     * Caches folder listings for the given interval so that polls in between only read leaves. Zero
+     * (the default) disables interval based caching.
+     *
+     * @param interval How long folder listings are reused
+     * @param unit Unit of the interval
+     * @throws IllegalArgumentException if interval is negative
+     */
+    public void setStructureRefreshInterval(final long interval, final TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval cannot be negative");
+        }
+        structureCache.setRefreshIntervalNanos(unit.toNanos(interval));
+    }
+
+    /**
+     * Caches folder listings so that folders are only listed again every given number of polls.
+     * Zero (the default) disables poll count based caching. Combined with {@link
+     * #setStructureRefreshInterval(long, TimeUnit)}, the structure is refreshed when either limit
+     * is reached.
+     *
+     * @param polls Number of polls between full structure refreshes
+     * @throws IllegalArgumentException if polls is negative
+     */
+    public void setStructureRefreshPolls(final int polls) {
+        if (polls < 0) {
+            throw new IllegalArgumentException("polls cannot be negative");
+        }
+        structureCache.setRefreshPolls(polls);
+    }
+
+    /**
+     * Returns true if a path meets the definition of a folder according to cerberus's convention
+     * (e.g. path ends with a forward slash).
+     *
+     * <p>See https://www.cerberusproject.io/docs/secrets/generic/index.html under the List API
+     * documentation for details as to Cerberus's convention
+     *
+     * @param path - The cerberus path we are checking to determine if it is a folder or a leaf.
+     * @return A boolean value, true if the path is a folder.
+     */
+    private boolean isFolder(final String path) {
+        return StringUtils.endsWith(path, "/");
+    }
+
+    /**
+     * Given a path, replaces the "/" with "." to match standard property name notation for Java.
+     *
+     * <p>Example: shared/foo/bar becomes shared.foo.bar
+     *
+     * @param path Path to do replacement on
+     * @return The modified path
+     */
+    private String getPathPrefix(final String path) {
+        String pathPrefix = StringUtils.replace(path, "/", ".");
+
+        if (!StringUtils.endsWith(pathPrefix, ".")) {
+            pathPrefix += ".";
+        }
+
+        return pathPrefix;
+    }
+
+    /**
+     * Traverses the cerberus path from the provided path down through it's leaves. Places all
+     * properties into the map that will be used to populate the snapshot.
+     *
+     * @param source - The source being refreshed.
+     * @param path - The parent path, all properties under this path will be populated.
+     * @param depth - The number of path segments between the root path and this path.
+     * @return - A map containing all the properties contained under the parent path.
+     */
+    private Map<String, Object> buildEntriesMap(
+            final CerberusSecretSource source, final String path, final int depth) {
+        final Map<String, Object> config = new HashMap<>();
+        if (source.isDeferred(path)) {
+            logger.debug("Deferring path '{}'", path);
+            return config;
+        }
+        if (isFolder(path)) {
+            if (!pathFilter.shouldList(path, depth)) {
+                logger.debug("Skipping filtered folder '{}'", path);
+                return config;
+            }
+            for (final String subpath : listFolder(source, path)) {
+                final String fullPath = path + subpath;
+                config.putAll(buildEntriesMap(source, fullPath, depth + 1));
+            }
+        } else {
+            if (!pathFilter.shouldRead(path, depth)) {
+                logger.debug("Skipping filtered path '{}'", path);
+                return config;
+            }
+            final CerberusResponse cerberusResponse = source.read(path);
+            final Map<String, String> dataFromCerberus = cerberusResponse.getData();
+            final String pathPrefix = getPathPrefix(path);
+            for (final Map.Entry<String, String> pair : dataFromCerberus.entrySet()) {
+                config.put(pathPrefix + pair.getKey(), pair.getValue());
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Lists a folder, using the structure cache when it is enabled.
+     *
+     * @param source - The source being refreshed.
+     * @param folder - The folder to list
+     * @return - The keys contained in the folder
+     */
+    private List<String> listFolder(final CerberusSecretSource source, final String folder) {
+        final List<String> cached = structureCache.get(folder);
+        if (cached != null) {
+            return cached;
+        }
+        final CerberusListResponse listResponse = source.list(folder);
+        final List<String> keys = listResponse.getKeys();
+        structureCache.put(folder, keys);
+        return keys;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Object> load(final CerberusSecretSource source) {
+        structureCache.beginPoll();
+        final boolean usedCachedStructure = !structureCache.isEmpty();
+        try {
+            return traverse(source);
+        } catch (CerberusServerException e) {
+            if (!usedCachedStructure || e.getCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw e;
+            }
+            // a cached folder listing referenced a path that no longer exists
+            logger.info("Cached folder structure is stale, listing all folders again");
+            structureCache.invalidate();
+            return traverse(source);
+        }
+    }
+
+    private Map<String, Object> traverse(final CerberusSecretSource source) {
+        final Map<String, Object> config = new HashMap<>();
+        for (final String path : source.getPaths()) {
+            logger.debug("poll: reading cerberus path '{}'...", path);
+            config.putAll(buildEntriesMap(source, path, 0));
+        }
+        return config;
+    }
+}
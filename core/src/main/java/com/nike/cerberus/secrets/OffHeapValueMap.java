@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only map that keeps String values UTF-8 encoded in a single direct buffer outside of the
+ * Java heap and decodes them on access. Values of any other type are kept on the heap as-is.
+ *
+ * <p>Once {@link #zeroize()} has been called the buffer is overwritten with zeros and every further
+ * value access fails with an {@link IllegalStateException}.
+ */
+final class OffHeapValueMap extends AbstractMap<String, Object> {
+
+    private final Map<String, Integer> slots;
+
+    private final int[] offsets;
+
+    private final int[] lengths;
+
+    private final Map<String, Object> heapValues = new HashMap<>();
+
+    private final ByteBuffer buffer;
+
+    private volatile boolean zeroized;
+
+    OffHeapValueMap(final Map<String, Object> values) {
+        final List<byte[]> encoded = new ArrayList<>(values.size());
+        final List<String> keys = new ArrayList<>(values.size());
+        int capacity = 0;
+        for (final Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() instanceof String) {
+                final byte[] bytes = ((String) entry.getValue()).getBytes(StandardCharsets.UTF_8);
+                keys.add(entry.getKey());
+                encoded.add(bytes);
+                capacity += bytes.length;
+            } else {
+                heapValues.put(entry.getKey(), entry.getValue());
+            }
+        }
+        slots = new HashMap<>(keys.size() * 4 / 3 + 1);
+        offsets = new int[keys.size()];
+        lengths = new int[keys.size()];
+        buffer = ByteBuffer.allocateDirect(capacity);
+        for (int slot = 0; slot < keys.size(); slot++) {
+            final byte[] bytes = encoded.get(slot);
+            slots.put(keys.get(slot), slot);
+            offsets[slot] = buffer.position();
+            lengths[slot] = bytes.length;
+            buffer.put(bytes);
+            Arrays.fill(bytes, (byte) 0);
+        }
+    }
+
+    /** Overwrites all off-heap values with zeros. */
+    void zeroize() {
+        zeroized = true;
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    boolean isZeroized() {
+        return zeroized;
+    }
+
+    /** Returns the values that are not Strings, which are kept on the heap. */
+    Map<String, Object> getHeapValues() {
+        return Collections.unmodifiableMap(heapValues);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        final Object heapValue = heapValues.get(key);
+        if (heapValue != null) {
+            return heapValue;
+        }
+        final Integer slot = slots.get(key);
+        return slot == null ? null : decode(slot);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return slots.containsKey(key) || heapValues.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return slots.size() + heapValues.size();
+    }
+
+    /** Returns the keys without decoding any value. */
+    @Override
+    public Set<String> keySet() {
+        final Set<String> keys = new HashSet<>(slots.keySet());
+        keys.addAll(heapValues.keySet());
+        return Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                final Iterator<String> offHeapKeys = slots.keySet().iterator();
+                final Iterator<Entry<String, Object>> heapEntries =
+                        heapValues.entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return offHeapKeys.hasNext() || heapEntries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (offHeapKeys.hasNext()) {
+                            final String key = offHeapKeys.next();
+                            return new SimpleImmutableEntry<>(key, decode(slots.get(key)));
+                        }
+                        return new SimpleImmutableEntry<>(heapEntries.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return OffHeapValueMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Copies a value through a view of its own, so reads never contend. The zeroized flag is set
+     * before the buffer is overwritten, so checking it again after the copy rejects a value that
+     * was read while it was being zeroed.
+     */
+    private String decode(final int slot) {
+        checkNotZeroized();
+        final byte[] bytes = new byte[lengths[slot]];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offsets[slot]);
+        view.get(bytes);
+        if (zeroized) {
+            Arrays.fill(bytes, (byte) 0);
+            checkNotZeroized();
+        }
+        final String value = new String(bytes, StandardCharsets.UTF_8);
+        Arrays.fill(bytes, (byte) 0);
+        return value;
+    }
+
+    private void checkNotZeroized() {
+        if (zeroized) {
+            throw new IllegalStateException(
+                    "Snapshot values have been zeroized because a newer snapshot was published");
+        }
+    }
+}
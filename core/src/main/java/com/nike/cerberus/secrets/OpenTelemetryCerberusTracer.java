@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+
+/**
+ * {@link CerberusTracer} reporting to OpenTelemetry.
+ *
+ * <p>Poll spans are children of the application's current context, so polls started from traced
+ * code appear in its trace. The OpenTelemetry API is an optional dependency and must be on the
+ * classpath to use this class.
+ *
+ * <pre>{@code
+ * source.setTracer(new OpenTelemetryCerberusTracer(openTelemetry.getTracer("cerberus")));
+ * }</pre>
+ */
+public class OpenTelemetryCerberusTracer implements CerberusTracer {
+
+    private final Tracer tracer;
+
+    /**
+     * Constructor
+     *
+     * @param tracer OpenTelemetry tracer. May not be null.
+     * @throws IllegalArgumentException if tracer is null
+     */
+    public OpenTelemetryCerberusTracer(final Tracer tracer) {
+        if (tracer == null) {
+            throw new IllegalArgumentException("tracer cannot be null");
+        }
+        this.tracer = tracer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CerberusSpan startSpan(final String name, final CerberusSpan parent) {
+        final SpanBuilder builder =
+                tracer.spanBuilder(name)
+                        .setSpanKind(POLL.equals(name) ? SpanKind.INTERNAL : SpanKind.CLIENT);
+        if (parent instanceof OpenTelemetrySpan) {
+            builder.setParent(Context.current().with(((OpenTelemetrySpan) parent).span));
+        }
+        return new OpenTelemetrySpan(builder.startSpan());
+    }
+
+    private static final class OpenTelemetrySpan implements CerberusSpan {
+
+        private final Span span;
+
+        private OpenTelemetrySpan(final Span span) {
+            this.span = span;
+        }
+
+        @Override
+        public void setAttribute(final String key, final String value) {
+            span.setAttribute(key, value);
+        }
+
+        @Override
+        public void setAttribute(final String key, final long value) {
+            span.setAttribute(key, value);
+        }
+
+        @Override
+        public void recordError(final Throwable error) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR);
+        }
+
+        @Override
+        public void end() {
+            span.end();
+        }
+    }
+}
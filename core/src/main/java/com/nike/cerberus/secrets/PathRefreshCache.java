@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of Cerberus responses for paths that are refreshed less often than the source is polled.
+ *
+ * <p>Each refresh interval applies to every path starting with its prefix, the longest matching
+ * prefix winning. A response is reused until its interval has elapsed since it was fetched; paths
+ * without an interval are always fetched. Responses that were not requested during a refresh are
+ * dropped at its end, so removed paths do not linger.
+ *
+ * <p>When responses are retained, the last response of every path is kept, so a refresh cut short
+ * by its deadline can fall back to it.
+ */
+class PathRefreshCache {
+
+    private final Map<String, Long> intervals = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Entry> responses = new ConcurrentHashMap<>();
+
+    private volatile long generation;
+
+    private volatile boolean retainResponses;
+
+    /**
+     * Sets or removes the refresh interval of a prefix and drops the responses cached under it.
+     *
+     * @param prefix Cerberus path prefix
+     * @param intervalNanos Interval in nanoseconds, 0 to remove it
+     */
+    void setInterval(final String prefix, final long intervalNanos) {
+        if (intervalNanos <= 0) {
+            intervals.remove(prefix);
+        } else {
+            intervals.put(prefix, intervalNanos);
+        }
+        responses.values().removeIf(entry -> entry.path.startsWith(prefix));
+    }
+
+    /**
+     * Returns the refresh interval applying to a path.
+     *
+     * @param path Cerberus path
+     * @return Interval in nanoseconds, or 0 if the path is fetched on every refresh
+     */
+    long getInterval(final String path) {
+        String match = null;
+        for (final String prefix : intervals.keySet()) {
+            if (path.startsWith(prefix) && (match == null || prefix.length() > match.length())) {
+                match = prefix;
+            }
+        }
+        return match == null ? 0 : intervals.get(match);
+    }
+
+    /**
+     * Keeps the last response of every path, not only of the paths with a refresh interval.
+     *
+     * @param retainResponses true to keep every response
+     */
+    void setRetainResponses(final boolean retainResponses) {
+        this.retainResponses = retainResponses;
+        if (!retainResponses) {
+            responses.values().removeIf(entry -> getInterval(entry.path) <= 0);
+        }
+    }
+
+    /**
+     * Returns the last response of a request, fresh or not, and marks it as requested by the
+     * current refresh.
+     *
+     * @param operation Name of the request, e.g. list
+     * @param path Cerberus path
+     * @return Last response, or null if none is cached
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getLast(final String operation, final String path) {
+        final Entry cached = responses.get(operation + ':' + path);
+        if (cached == null) {
+            return null;
+        }
+        cached.generation = generation;
+        return (T) cached.response;
+    }
+
+    /**
+     * Returns the cached response of a request while it is fresh, otherwise fetches it.
+     *
+     * @param operation Name of the request, e.g. list
+     * @param path Cerberus path
+     * @param fetch Performs the request
+     * @return Response
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(final String operation, final String path, final Supplier<T> fetch) {
+        final long interval = getInterval(path);
+        if (interval <= 0 && !retainResponses) {
+            return fetch.get();
+        }
+        final String key = operation + ':' + path;
+        final long now = System.nanoTime();
+        final Entry cached = responses.get(key);
+        if (cached != null && now - cached.fetchedNanos < interval) {
+            cached.generation = generation;
+            return (T) cached.response;
+        }
+        final T response = fetch.get();
+        responses.put(key, new Entry(path, response, now, generation));
+        return response;
+    }
+
+    /** Called at the start of every refresh. */
+    synchronized void beginRefresh() {
+        generation++;
+    }
+
+    /** Called after a successful refresh; drops the responses it did not request. */
+    synchronized void endRefresh() {
+        final long current = generation;
+        responses.values().removeIf(entry -> entry.generation != current);
+    }
+
+    private static final class Entry {
+
+        private final String path;
+
+        private final Object response;
+
+        private final long fetchedNanos;
+
+        private volatile long generation;
+
+        private Entry(
+                final String path,
+                final Object response,
+                final long fetchedNanos,
+                final long generation) {
+            this.path = path;
+            this.response = response;
+            this.fetchedNanos = fetchedNanos;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request timings and error counts of a source, per Cerberus path.
+ *
+ * <p>Recording a request costs a map lookup and a few atomic updates, so timings are always
+ * collected. Paths are only forgotten when the timings are reset.
+ */
+class PathTimings {
+
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+    /**
+     * Records a request.
+     *
+     * @param path Cerberus path
+     * @param nanos Duration of the request in nanoseconds
+     * @param failed Whether the request failed
+     */
+    void record(final String path, final long nanos, final boolean failed) {
+        timings.computeIfAbsent(path, p -> new Timing()).record(nanos, failed);
+    }
+
+    /**
+     * Returns the paths whose last request took longest, slowest first.
+     *
+     * @param limit Maximum number of paths
+     * @return Path summaries, e.g. "app/demo/config last=12ms max=40ms requests=3 errors=0"
+     */
+    List<String> getSlowestPaths(final int limit) {
+        // copy first: lastNanos keeps changing, which would break the comparator's contract
+        final List<PathTiming> copies = new ArrayList<>(timings.size());
+        timings.forEach((path, timing) -> copies.add(new PathTiming(path, timing)));
+        copies.sort(Comparator.comparingLong((PathTiming t) -> t.lastNanos).reversed());
+        final List<String> slowest = new ArrayList<>();
+        for (final PathTiming copy : copies) {
+            if (slowest.size() == limit) {
+                break;
+            }
+            slowest.add(copy.toString());
+        }
+        return slowest;
+    }
+
+    /**
+     * Returns the number of failed requests of every path that failed at least once.
+     *
+     * @return Error count by path
+     */
+    Map<String, Long> getErrorCounts() {
+        final Map<String, Long> errors = new LinkedHashMap<>();
+        timings.forEach(
+                (path, timing) -> {
+                    final long count = timing.errors.sum();
+                    if (count > 0) {
+                        errors.put(path, count);
+                    }
+                });
+        return errors;
+    }
+
+    /**
+     * Returns one line per path, sorted by path.
+     *
+     * @return Timings of every path
+     */
+    String dump() {
+        final StringBuilder dump = new StringBuilder();
+        timings.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(
+                        entry ->
+                                dump.append(new PathTiming(entry.getKey(), entry.getValue()))
+                                        .append('\n'));
+        return dump.toString();
+    }
+
+    void reset() {
+        timings.clear();
+    }
+
+    /** Values of a {@link Timing} read once, so they stay consistent while they are used. */
+    private static final class PathTiming {
+
+        private final String path;
+
+        private final long lastNanos;
+
+        private final long maxNanos;
+
+        private final long requests;
+
+        private final long errors;
+
+        private PathTiming(final String path, final Timing timing) {
+            this.path = path;
+            this.lastNanos = timing.lastNanos;
+            this.maxNanos = timing.maxNanos.get();
+            this.requests = timing.requests.sum();
+            this.errors = timing.errors.sum();
+        }
+
+        @Override
+        public String toString() {
+            return path
+                    + " last="
+                    + TimeUnit.NANOSECONDS.toMillis(lastNanos)
+                    + "ms max="
+                    + TimeUnit.NANOSECONDS.toMillis(maxNanos)
+                    + "ms requests="
+                    + requests
+                    + " errors="
+                    + errors;
+        }
+    }
+
+    private static final class Timing {
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private volatile long lastNanos;
+
+        private void record(final long nanos, final boolean failed) {
+            requests.increment();
+            if (failed) {
+                errors.increment();
+            }
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            lastNanos = nanos;
+        }
+    }
+}
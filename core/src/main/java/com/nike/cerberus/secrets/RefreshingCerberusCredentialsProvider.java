@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.auth.CerberusCredentials;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Credentials provider that authenticates as soon as it is created and keeps the token fresh from a
+ * background thread, so that Cerberus requests never wait for an authentication round trip.
+ *
+ * <p>The Cerberus credentials providers cache their token and only authenticate again once it is
+ * about to expire. This provider asks its delegate for credentials at a fixed interval; as long as
+ * the interval is shorter than the delegate's expiry padding, the renewal happens on the background
+ * thread rather than inside a request. Failed background refreshes are logged and retried on the
+ * next tick; requests then fall back to the delegate's own lazy authentication.
+ *
+ * <p>Each instance owns a scheduler thread, so share one instance per credentials chain and {@link
+ * #close()} it when it is no longer needed.
+ */
+public class RefreshingCerberusCredentialsProvider
+        implements CerberusCredentialsProvider, AutoCloseable {
+
+    /** Default interval at which the delegate is asked for credentials, 30 seconds */
+    public static final long DEFAULT_REFRESH_INTERVAL_SECONDS = 30;
+
+    /** Default time the constructor waits for the first authentication, 10 seconds */
+    public static final long DEFAULT_AUTH_TIMEOUT_MILLIS = 10_000;
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(RefreshingCerberusCredentialsProvider.class);
+
+    private final CerberusCredentialsProvider delegate;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor that authenticates immediately, waiting at most {@link
+     * #DEFAULT_AUTH_TIMEOUT_MILLIS}, and then schedules the background refresh.
+     *
+     * @param delegate Provider performing the authentication. May not be null.
+     * @param interval Interval at which the delegate is asked for credentials
+     * @param unit Unit of the interval. May not be null.
+     * @throws IllegalArgumentException if delegate or unit is null or interval is not positive
+     */
+    public RefreshingCerberusCredentialsProvider(
+            final CerberusCredentialsProvider delegate, final long interval, final TimeUnit unit) {
+        this(delegate, interval, unit, DEFAULT_AUTH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor that authenticates immediately and then schedules the background refresh. If the
+     * first authentication takes longer than the timeout, the constructor returns anyway and the
+     * authentication completes in the background.
+     *
+     * @param delegate Provider performing the authentication. May not be null.
+     * @param interval Interval at which the delegate is asked for credentials
+     * @param unit Unit of the interval. May not be null.
+     * @param authTimeout Maximum time to wait for the first authentication
+     * @param authTimeoutUnit Unit of the authentication timeout. May not be null.
+     * @throws IllegalArgumentException if delegate or a unit is null, interval is not positive or
+     *     authTimeout is negative
+     */
+    public RefreshingCerberusCredentialsProvider(
+            final CerberusCredentialsProvider delegate,
+            final long interval,
+            final TimeUnit unit,
+            final long authTimeout,
+            final TimeUnit authTimeoutUnit) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+        if (unit == null || authTimeoutUnit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        if (authTimeout < 0) {
+            throw new IllegalArgumentException("authTimeout cannot be negative");
+        }
+        this.delegate = delegate;
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            final Thread thread = new Thread(runnable, "cerberus-auth-refresh");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        final Future<?> authenticated = scheduler.submit(this::refresh);
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, unit);
+        try {
+            authenticated.get(authTimeout, authTimeoutUnit);
+        } catch (TimeoutException e) {
+            logger.warn(
+                    "Cerberus authentication took longer than {} ms, continuing in the background",
+                    authTimeoutUnit.toMillis(authTimeout));
+        } catch (ExecutionException e) {
+            logger.warn("Failed to authenticate with Cerberus, will retry", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public CerberusCredentialsProvider getDelegate() {
+        return delegate;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CerberusCredentials getCredentials() {
+        return delegate.getCredentials();
+    }
+
+    /** Stops the background refresh. */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            delegate.getCredentials();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh Cerberus credentials, will retry", e);
+        }
+    }
+}
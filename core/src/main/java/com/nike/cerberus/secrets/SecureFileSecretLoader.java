@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loader that exposes the Cerberus secure files stored under one or more paths.
+ *
+ * <p>Each file is available as a {@link CerberusSecureFile} keyed by its full Cerberus path (e.g.
+ * app/myApplication/keystore.jks). A load only lists the files; their content is downloaded lazily
+ * the first time it is accessed and is not downloaded again until the file changes. Files larger
+ * than the configured maximum size are skipped.
+ */
+public class SecureFileSecretLoader implements CerberusSecretLoader {
+
+    /** Default maximum size of a secure file that will be exposed, 1 MiB */
+    public static final long DEFAULT_MAX_FILE_SIZE_BYTES = 1024L * 1024L;
+
+    private static final Logger logger = LoggerFactory.getLogger(SecureFileSecretLoader.class);
+
+    private final Map<String, CerberusSecureFile> files = new ConcurrentHashMap<>();
+
+    private volatile long maxFileSizeBytes = DEFAULT_MAX_FILE_SIZE_BYTES;
+
+    /**
+     * Sets the maximum size of a secure file that will be exposed by this loader.
+     *
+     * @param maxFileSizeBytes Maximum file size in bytes
+     * @throws IllegalArgumentException if maxFileSizeBytes is not positive
+     */
+    public void setMaxFileSizeBytes(final long maxFileSizeBytes) {
+        if (maxFileSizeBytes <= 0) {
+            throw new IllegalArgumentException("maxFileSizeBytes must be positive");
+        }
+        this.maxFileSizeBytes = maxFileSizeBytes;
+    }
+
+    public long getMaxFileSizeBytes() {
+        return maxFileSizeBytes;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Object> load(final CerberusSecretSource source) {
+        final Map<String, Object> config = new HashMap<>();
+        for (final String path : source.getPaths()) {
+            if (source.isDeferred(path)) {
+                logger.debug("Deferring secure files under cerberus path '{}'", path);
+                continue;
+            }
+            logger.debug("load: listing secure files under cerberus path '{}'...", path);
+            final CerberusListFilesResponse response = source.listFiles(path);
+            // listed paths omit the SDB category, e.g. app/, so it is restored from the root path
+            final String category = StringUtils.substringBefore(path, "/");
+            for (final SecureFileSummary summary : response.getSecureFileSummaries()) {
+                final String fullPath = category + "/" + summary.getPath();
+                final long size = summary.getSizeInBytes();
+                if (size > maxFileSizeBytes) {
+                    logger.warn(
+                            "Skipping secure file {} of {} bytes, maximum is {} bytes",
+                            fullPath,
+                            size,
+                            maxFileSizeBytes);
+                    continue;
+                }
+                config.put(fullPath, getFile(source, fullPath, size, summary.getLastUpdatedTs()));
+            }
+        }
+        files.keySet().retainAll(config.keySet());
+        return config;
+    }
+
+    private CerberusSecureFile getFile(
+            final CerberusSecretSource source,
+            final String fullPath,
+            final long size,
+            final Object lastUpdated) {
+        final CerberusSecureFile existing = files.get(fullPath);
+        if (existing != null && existing.isCurrent(size, lastUpdated)) {
+            return existing;
+        }
+        final CerberusSecureFile file =
+                new CerberusSecureFile(source, fullPath, size, maxFileSizeBytes, lastUpdated);
+        files.put(fullPath, file);
+        return file;
+    }
+}
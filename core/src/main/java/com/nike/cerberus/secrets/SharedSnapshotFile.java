@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Memory-mapped file through which one process per host shares its snapshot with the others.
+ *
+ * <p>The file starts with a fixed header guarded by a sequence number, odd while the leader is
+ * writing, followed by the AES-GCM encrypted properties. Readers copy the header and payload and
+ * retry if the sequence number changed meanwhile; the authentication tag additionally rejects any
+ * torn read, which is retried as well. Accesses to the sequence number are fenced so that neither
+ * the JIT nor the CPU moves the header and payload accesses across them. Leadership is a lock on a
+ * sibling file, released by the operating system when the leading process dies.
+ */
+final class SharedSnapshotFile implements Closeable {
+
+    /** "CRBS" */
+    static final int MAGIC = 0x43524253;
+
+    static final int FORMAT = 1;
+
+    static final int HEADER_SIZE = 48;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int FORMAT_OFFSET = 4;
+
+    private static final int SEQUENCE_OFFSET = 8;
+
+    private static final int VERSION_OFFSET = 16;
+
+    private static final int HEARTBEAT_OFFSET = 24;
+
+    private static final int LENGTH_OFFSET = 32;
+
+    private static final int NONCE_OFFSET = 36;
+
+    private static final int NONCE_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final int READ_ATTEMPTS = 100;
+
+    /** Only accessed by {@link #fence()} */
+    private static volatile int fence;
+
+    private static final Set<PosixFilePermission> OWNER_ONLY =
+            PosixFilePermissions.fromString("rw-------");
+
+    private final Path path;
+
+    private final Path lockPath;
+
+    private final SecretKey key;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private boolean writable;
+
+    private FileChannel lockChannel;
+
+    private FileLock lock;
+
+    private Map<String, String> written;
+
+    SharedSnapshotFile(final Path path, final SecretKey key) {
+        this.path = path;
+        this.lockPath = path.resolveSibling(path.getFileName() + ".lock");
+        this.key = key;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Becomes the leader if no other process or loader holds the lock.
+     *
+     * @return true if this instance is the leader
+     * @throws IOException if the lock file cannot be opened
+     */
+    synchronized boolean tryLead() throws IOException {
+        if (lock != null && lock.isValid()) {
+            return true;
+        }
+        if (lockChannel == null) {
+            create(lockPath);
+            lockChannel = FileChannel.open(lockPath, StandardOpenOption.WRITE);
+        }
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // another loader of this JVM leads
+            lock = null;
+        }
+        return lock != null;
+    }
+
+    synchronized boolean isLeader() {
+        return lock != null && lock.isValid();
+    }
+
+    /**
+     * Publishes the properties if they differ from the ones written last, otherwise only refreshes
+     * the heartbeat.
+     *
+     * @param values Properties to share
+     * @return Version of the shared snapshot
+     */
+    synchronized long write(final Map<String, String> values)
+            throws IOException, GeneralSecurityException {
+        if (values.equals(written) && buffer != null && writable) {
+            final long sequence = beginWrite();
+            buffer.putLong(HEARTBEAT_OFFSET, System.currentTimeMillis());
+            endWrite(sequence);
+            return buffer.getLong(VERSION_OFFSET);
+        }
+        final byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        map(true, 0);
+        final long version =
+                (buffer.capacity() >= HEADER_SIZE && buffer.getInt(MAGIC_OFFSET) == MAGIC
+                                ? buffer.getLong(VERSION_OFFSET)
+                                : 0)
+                        + 1;
+        final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+        cipher.updateAAD(associatedData(version));
+        final byte[] payload = cipher.doFinal(serialize(values));
+        map(true, HEADER_SIZE + payload.length);
+
+        final long sequence = beginWrite();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(FORMAT_OFFSET, FORMAT);
+        buffer.putLong(VERSION_OFFSET, version);
+        buffer.putLong(HEARTBEAT_OFFSET, System.currentTimeMillis());
+        buffer.putInt(LENGTH_OFFSET, payload.length);
+        for (int i = 0; i < NONCE_LENGTH; i++) {
+            buffer.put(NONCE_OFFSET + i, nonce[i]);
+        }
+        for (int i = 0; i < payload.length; i++) {
+            buffer.put(HEADER_SIZE + i, payload[i]);
+        }
+        endWrite(sequence);
+        written = new HashMap<>(values);
+        return version;
+    }
+
+    /**
+     * Reads the shared snapshot if it is newer than the given version.
+     *
+     * @param knownVersion Version the caller already has
+     * @return The snapshot, without values if its version is not newer, or null if nothing has been
+     *     shared yet
+     */
+    synchronized Shared read(final long knownVersion) throws IOException, GeneralSecurityException {
+        AEADBadTagException badTag = null;
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+                return null;
+            }
+            map(false, 0);
+            final long sequence = buffer.getLong(SEQUENCE_OFFSET);
+            if ((sequence & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            fence();
+            final int magic = buffer.getInt(MAGIC_OFFSET);
+            if (magic == 0) {
+                return null;
+            }
+            if (magic != MAGIC || buffer.getInt(FORMAT_OFFSET) != FORMAT) {
+                throw new IOException(path + " is not a Cerberus snapshot file");
+            }
+            final long version = buffer.getLong(VERSION_OFFSET);
+            final long heartbeat = buffer.getLong(HEARTBEAT_OFFSET);
+            if (version <= knownVersion) {
+                fence();
+                if (buffer.getLong(SEQUENCE_OFFSET) == sequence) {
+                    return new Shared(version, heartbeat, null);
+                }
+                continue;
+            }
+            final int length = buffer.getInt(LENGTH_OFFSET);
+            if (length < 0 || HEADER_SIZE + (long) length > buffer.capacity()) {
+                // grown by the leader, map it again
+                buffer = null;
+                continue;
+            }
+            final byte[] nonce = new byte[NONCE_LENGTH];
+            final byte[] payload = new byte[length];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(NONCE_OFFSET);
+            view.get(nonce);
+            view.position(HEADER_SIZE);
+            view.get(payload);
+            fence();
+            if (buffer.getLong(SEQUENCE_OFFSET) != sequence) {
+                continue;
+            }
+            final Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(associatedData(version));
+            final byte[] plain;
+            try {
+                plain = cipher.doFinal(payload);
+            } catch (AEADBadTagException e) {
+                // torn read the sequence number did not catch, or a different key
+                badTag = e;
+                Thread.yield();
+                continue;
+            }
+            return new Shared(version, heartbeat, deserialize(plain));
+        }
+        if (badTag != null) {
+            throw badTag;
+        }
+        throw new IOException(path + " kept changing while being read");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (lockChannel != null) {
+            // closing the channel releases the lock
+            lockChannel.close();
+            lockChannel = null;
+            lock = null;
+        }
+    }
+
+    private long beginWrite() {
+        // a leader that died while writing left an odd sequence number
+        final long sequence = buffer.getLong(SEQUENCE_OFFSET) | 1;
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+        fence();
+        return sequence;
+    }
+
+    private void endWrite(final long sequence) {
+        fence();
+        buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+    }
+
+    /**
+     * Full fence between plain accesses to the mapped buffer: a volatile write followed by a
+     * volatile read, since Java 8 has no explicit fences.
+     *
+     * @return Value of the fence field, to be ignored
+     */
+    private static int fence() {
+        fence = 0;
+        return fence;
+    }
+
+    /** Maps the whole file, growing it to at least the given size when writing. */
+    private void map(final boolean write, final long size) throws IOException {
+        if (write && !writable) {
+            close(channel);
+            create(path);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = null;
+            writable = true;
+        } else if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            writable = false;
+        }
+        final long required = Math.max(size, HEADER_SIZE);
+        if (write && channel.size() < required) {
+            channel.write(ByteBuffer.wrap(new byte[1]), required + required / 2);
+            buffer = null;
+        }
+        if (buffer == null || buffer.capacity() < channel.size()) {
+            buffer =
+                    channel.map(
+                            writable
+                                    ? FileChannel.MapMode.READ_WRITE
+                                    : FileChannel.MapMode.READ_ONLY,
+                            0,
+                            channel.size());
+        }
+    }
+
+    private static void close(final FileChannel channel) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private static void create(final Path file) throws IOException {
+        try {
+            if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createFile(file);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // created by another process
+        }
+    }
+
+    private static byte[] associatedData(final long version) {
+        return ByteBuffer.allocate(16).putInt(MAGIC).putInt(FORMAT).putLong(version).array();
+    }
+
+    private static byte[] serialize(final Map<String, String> values) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(values.size());
+            for (final Map.Entry<String, String> entry : values.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, String> deserialize(final byte[] plain) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain))) {
+            final int size = in.readInt();
+            final Map<String, String> values = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                values.put(readString(in), readString(in));
+            }
+            return values;
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value)
+            throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Snapshot read from the file. */
+    static final class Shared {
+
+        final long version;
+
+        final long heartbeatMillis;
+
+        /** Null if the version is not newer than the reader's */
+        final Map<String, String> values;
+
+        Shared(final long version, final long heartbeatMillis, final Map<String, String> values) {
+            this.version = version;
+            this.heartbeatMillis = heartbeatMillis;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loader sharing one snapshot between all processes of a host that refresh the same paths.
+ *
+ * <p>The process holding the lock on the snapshot file is the leader: it loads from Cerberus with
+ * the delegate loader and writes the result, AES-GCM encrypted, into the memory-mapped file. Every
+ * other process maps the file read-only and only decodes it when the leader published a new
+ * version, so followers send no requests and never authenticate. When the leader exits, the
+ * operating system releases its lock and the next follower to refresh takes over.
+ *
+ * <p>A follower loads from Cerberus itself while nothing has been shared yet and, if a maximum
+ * staleness is set, while the leader has not refreshed the file for longer than that. Only String
+ * values are shared; loaders producing other values, such as secure files, cannot be shared.
+ *
+ * <pre>{@code
+ * SharedSnapshotLoader loader = new SharedSnapshotLoader(
+ *         new NamespacedSecretLoader(), Paths.get("/dev/shm/cerberus-demo"), key);
+ * CerberusSecretSource source = new CerberusSecretSource(cerberusClient, loader, "app/demo/");
+ * }</pre>
+ */
+public class SharedSnapshotLoader implements CerberusSecretLoader, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedSnapshotLoader.class);
+
+    private final CerberusSecretLoader delegate;
+
+    private final SharedSnapshotFile file;
+
+    private volatile long maxStalenessMillis;
+
+    private long version;
+
+    private Map<String, Object> values;
+
+    /**
+     * Constructor
+     *
+     * @param delegate Loader used by the leader to load from Cerberus
+     * @param path Snapshot file shared by the processes, e.g. under /dev/shm; a lock file is
+     *     created next to it
+     * @param key AES key shared by the processes, 128 or 256 bits
+     * @throws IllegalArgumentException if any argument is null or the key is not an AES key
+     */
+    public SharedSnapshotLoader(
+            final CerberusSecretLoader delegate, final Path path, final SecretKey key) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("path cannot be null");
+        }
+        if (key == null || !"AES".equals(key.getAlgorithm())) {
+            throw new IllegalArgumentException("key must be an AES key");
+        }
+        this.delegate = delegate;
+        this.file = new SharedSnapshotFile(path.toAbsolutePath(), key);
+    }
+
+    /**
+     * Sets how old the shared snapshot may get before a follower loads from Cerberus itself, in
+     * case the leader is alive but stuck.
+     *
+     * @param maxStaleness Maximum time since the leader last refreshed the file, 0 to always use
+     *     the shared snapshot
+     * @param unit Unit of the staleness
+     * @throws IllegalArgumentException if unit is null or maxStaleness is negative
+     */
+    public void setMaxStaleness(final long maxStaleness, final TimeUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (maxStaleness < 0) {
+            throw new IllegalArgumentException("maxStaleness cannot be negative");
+        }
+        this.maxStalenessMillis = unit.toMillis(maxStaleness);
+    }
+
+    public long getMaxStaleness(final TimeUnit unit) {
+        return unit.convert(maxStalenessMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public CerberusSecretLoader getDelegate() {
+        return delegate;
+    }
+
+    public Path getPath() {
+        return file.getPath();
+    }
+
+    /**
+     * Returns whether this loader refreshes the shared snapshot for the host.
+     *
+     * @return true if this loader holds the lock
+     */
+    public boolean isLeader() {
+        return file.isLeader();
+    }
+
+    /**
+     * Returns the version of the shared snapshot last written or read.
+     *
+     * @return Shared snapshot version, or 0 if none has been written or read yet
+     */
+    public synchronized long getSharedVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized Map<String, Object> load(final CerberusSecretSource source) {
+        try {
+            if (file.tryLead()) {
+                return lead(source);
+            }
+            final SharedSnapshotFile.Shared shared = file.read(version);
+            if (shared == null) {
+                logger.info("No snapshot shared in {} yet, loading from Cerberus", file.getPath());
+                return delegate.load(source);
+            }
+            final long age = System.currentTimeMillis() - shared.heartbeatMillis;
+            final long maxStaleness = maxStalenessMillis;
+            if (maxStaleness > 0 && age > maxStaleness) {
+                logger.warn(
+                        "Snapshot shared in {} was last refreshed {} ms ago, loading from Cerberus",
+                        file.getPath(),
+                        age);
+                return delegate.load(source);
+            }
+            if (shared.values != null) {
+                logger.debug("Read shared snapshot version {}", shared.version);
+                version = shared.version;
+                values = Collections.unmodifiableMap(new HashMap<>(shared.values));
+            }
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to share snapshot in " + file.getPath(), e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(
+                    "Unable to decrypt snapshot shared in " + file.getPath(), e);
+        }
+    }
+
+    private Map<String, Object> lead(final CerberusSecretSource source) {
+        final Map<String, Object> loaded = delegate.load(source);
+        final Map<String, String> shared = new HashMap<>(loaded.size() * 4 / 3 + 1);
+        for (final Map.Entry<String, Object> entry : loaded.entrySet()) {
+            if (entry.getValue() instanceof String) {
+                shared.put(entry.getKey(), (String) entry.getValue());
+            } else if (entry.getValue() != null) {
+                logger.warn("Not sharing {}, only String values can be shared", entry.getKey());
+            }
+        }
+        final long written;
+        try {
+            written = file.write(shared);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            // the values were loaded, only sharing them failed
+            logger.error(
+                    "Unable to share snapshot in {}, other processes keep their last one",
+                    file.getPath(),
+                    e);
+            return loaded;
+        }
+        if (written != version) {
+            logger.info("Shared snapshot version {} in {}", written, file.getPath());
+            version = written;
+        }
+        return loaded;
+    }
+
+    /** Releases the snapshot file and, if this loader leads, the leadership. */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
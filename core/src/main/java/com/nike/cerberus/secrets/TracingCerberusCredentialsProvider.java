@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import com.nike.cerberus.client.auth.CerberusCredentials;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+
+/**
+ * Credentials provider that opens a {@value CerberusTracer#AUTH} span around its delegate, nested
+ * in the span of the request that needed the credentials. Token caching and renewal stay with the
+ * delegate, so a long span points at an authentication round trip stalling the request.
+ */
+public class TracingCerberusCredentialsProvider implements CerberusCredentialsProvider {
+
+    private final CerberusCredentialsProvider delegate;
+
+    private final CerberusTracer tracer;
+
+    /**
+     * Constructor
+     *
+     * @param delegate Provider performing the authentication. May not be null.
+     * @param tracer Tracer receiving the spans. May not be null.
+     * @throws IllegalArgumentException if delegate or tracer is null
+     */
+    public TracingCerberusCredentialsProvider(
+            final CerberusCredentialsProvider delegate, final CerberusTracer tracer) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+        if (tracer == null) {
+            throw new IllegalArgumentException("tracer cannot be null");
+        }
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CerberusCredentials getCredentials() {
+        final CerberusSpan span = tracer.startSpan(CerberusTracer.AUTH, ActiveSpan.get());
+        try {
+            final CerberusCredentials credentials = delegate.getCredentials();
+            span.setAttribute(CerberusSpan.STATUS, ActiveSpan.OK);
+            return credentials;
+        } catch (RuntimeException e) {
+            span.setAttribute(CerberusSpan.STATUS, ActiveSpan.status(e));
+            span.recordError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
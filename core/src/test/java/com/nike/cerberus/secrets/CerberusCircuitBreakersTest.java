@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nike.cerberus.client.CerberusClientException;
+import com.nike.cerberus.client.CerberusServerException;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.Test;
+
+/** Test class for CerberusCircuitBreakers */
+public class CerberusCircuitBreakersTest {
+
+    @Test
+    public void server_errors_and_connection_failures_are_failures() {
+        assertThat(CerberusCircuitBreakers.isFailure(serverException(500))).isTrue();
+        assertThat(CerberusCircuitBreakers.isFailure(serverException(503))).isTrue();
+        assertThat(CerberusCircuitBreakers.isFailure(new CerberusClientException("timeout")))
+                .isTrue();
+    }
+
+    @Test
+    public void client_errors_are_not_failures() {
+        assertThat(CerberusCircuitBreakers.isFailure(serverException(404))).isFalse();
+        assertThat(CerberusCircuitBreakers.isFailure(serverException(403))).isFalse();
+    }
+
+    @Test
+    public void default_config_has_slow_call_threshold() {
+        assertThat(CerberusCircuitBreakers.defaultConfig().getSlowCallDurationThreshold())
+                .isEqualTo(Duration.ofSeconds(5));
+        assertThat(CerberusCircuitBreakers.create("cerberus").getName()).isEqualTo("cerberus");
+    }
+
+    private static CerberusServerException serverException(final int code) {
+        return new CerberusServerException(code, Collections.singletonList("error"));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import cerberus.okhttp3.OkHttpClient;
+import com.nike.cerberus.client.CerberusClientException;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusConnectionWarmer */
+public class CerberusConnectionWarmerTest {
+
+    private HttpServer server;
+
+    private AtomicInteger healthchecks;
+
+    private String url;
+
+    @Before
+    public void setup() throws Exception {
+        healthchecks = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(
+                "/" + CerberusConnectionWarmer.HEALTHCHECK_PATH,
+                exchange -> {
+                    healthchecks.incrementAndGet();
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_connect_with_invalid_url() {
+        CerberusConnectionWarmer.connect(new OkHttpClient(), "not a url", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_connect_with_no_connections() {
+        CerberusConnectionWarmer.connect(new OkHttpClient(), url, 0);
+    }
+
+    @Test
+    public void connect_leaves_connections_in_the_pool() {
+        final OkHttpClient httpClient = new OkHttpClient();
+
+        final CompletableFuture<Void> connected =
+                CerberusConnectionWarmer.connect(httpClient, url, 2);
+
+        assertThat(CerberusConnectionWarmer.await(connected, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthchecks.get()).isEqualTo(2);
+        assertThat(httpClient.connectionPool().idleConnectionCount()).isGreaterThan(0);
+    }
+
+    @Test
+    public void connect_completes_when_the_server_is_down() {
+        server.stop(0);
+
+        final CompletableFuture<Void> connected =
+                CerberusConnectionWarmer.connect(new OkHttpClient(), url, 1);
+
+        assertThat(CerberusConnectionWarmer.await(connected, 5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void authenticate_fetches_credentials_and_swallows_failures() {
+        final CerberusCredentialsProvider provider = mock(CerberusCredentialsProvider.class);
+        when(provider.getCredentials()).thenThrow(new CerberusClientException("no credentials"));
+
+        final CompletableFuture<Void> authenticated =
+                CerberusConnectionWarmer.authenticate(provider);
+
+        assertThat(CerberusConnectionWarmer.await(authenticated, 5, TimeUnit.SECONDS)).isTrue();
+        verify(provider).getCredentials();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/** Test class for CerberusPathFilter */
+public class CerberusPathFilterTest {
+
+    @Test
+    public void accept_all_accepts_everything() {
+        assertThat(CerberusPathFilter.ACCEPT_ALL.shouldList("app/foo/bar/", 10)).isTrue();
+        assertThat(CerberusPathFilter.ACCEPT_ALL.shouldRead("app/foo/bar/baz", 11)).isTrue();
+    }
+
+    @Test
+    public void exclude_prunes_folder_and_everything_below_it() {
+        final CerberusPathFilter subject =
+                new CerberusPathFilter(
+                        Collections.<String>emptyList(),
+                        Collections.singletonList("app/foo/archive/**"),
+                        Integer.MAX_VALUE);
+
+        assertThat(subject.shouldList("app/foo/archive/", 1)).isFalse();
+        assertThat(subject.shouldRead("app/foo/archive/config", 2)).isFalse();
+        assertThat(subject.shouldList("app/foo/prod/", 1)).isTrue();
+        assertThat(subject.shouldRead("app/foo/prod/config", 2)).isTrue();
+    }
+
+    @Test
+    public void include_only_lists_folders_that_can_contain_matches() {
+        final CerberusPathFilter subject =
+                new CerberusPathFilter(
+                        Arrays.asList("app/foo/prod/*", "app/foo/shared/**"),
+                        Collections.<String>emptyList(),
+                        Integer.MAX_VALUE);
+
+        assertThat(subject.shouldList("app/foo/", 0)).isTrue();
+        assertThat(subject.shouldList("app/foo/prod/", 1)).isTrue();
+        assertThat(subject.shouldList("app/foo/qa/", 1)).isFalse();
+        assertThat(subject.shouldRead("app/foo/prod/config", 2)).isTrue();
+        assertThat(subject.shouldRead("app/foo/prod/nested/config", 3)).isFalse();
+        assertThat(subject.shouldRead("app/foo/shared/nested/config", 3)).isTrue();
+    }
+
+    @Test
+    public void max_depth_limits_traversal() {
+        final CerberusPathFilter subject =
+                new CerberusPathFilter(
+                        Collections.<String>emptyList(), Collections.<String>emptyList(), 1);
+
+        assertThat(subject.shouldList("app/foo/", 0)).isTrue();
+        assertThat(subject.shouldRead("app/foo/config", 1)).isTrue();
+        assertThat(subject.shouldList("app/foo/nested/", 1)).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void max_depth_cannot_be_negative() {
+        new CerberusPathFilter(
+                Collections.<String>emptyList(), Collections.<String>emptyList(), -1);
+    }
+}
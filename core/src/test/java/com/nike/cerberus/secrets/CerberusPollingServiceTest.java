@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.nike.cerberus.client.CerberusClient;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusPollingService */
+public class CerberusPollingServiceTest {
+
+    private CerberusClient cerberusClient;
+
+    private CerberusPollingService subject;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        subject = new CerberusPollingService(1);
+    }
+
+    @After
+    public void tearDown() {
+        subject.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_non_positive_pool_size() {
+        new CerberusPollingService(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_register_with_non_positive_interval() {
+        subject.register(newSource(cerberusClient, new AtomicInteger()), 0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void sources_sharing_a_client_and_interval_share_a_cycle() {
+        subject.register(newSource(cerberusClient, new AtomicInteger()), 1, TimeUnit.HOURS);
+        subject.register(newSource(cerberusClient, new AtomicInteger()), 60, TimeUnit.MINUTES);
+        assertThat(subject.getCycleCount()).isEqualTo(1);
+
+        subject.register(newSource(cerberusClient, new AtomicInteger()), 1, TimeUnit.MINUTES);
+        subject.register(
+                newSource(mock(CerberusClient.class), new AtomicInteger()), 1, TimeUnit.HOURS);
+        assertThat(subject.getCycleCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void registering_again_changes_the_interval() {
+        final CerberusSecretSource source = newSource(cerberusClient, new AtomicInteger());
+        subject.register(source, 1, TimeUnit.HOURS);
+        subject.register(source, 5, TimeUnit.MINUTES);
+
+        assertThat(subject.getInterval(source, TimeUnit.MINUTES)).isEqualTo(5L);
+        assertThat(subject.getCycleCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void cancelling_the_last_registration_stops_the_cycle() {
+        final CerberusSecretSource source = newSource(cerberusClient, new AtomicInteger());
+        final CerberusPollingService.Registration registration =
+                subject.register(source, 1, TimeUnit.HOURS);
+
+        registration.cancel();
+
+        assertThat(subject.getCycleCount()).isEqualTo(0);
+        assertThat(subject.getInterval(source, TimeUnit.HOURS)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void failing_source_does_not_stop_the_cycle() throws Exception {
+        final CountDownLatch refreshed = new CountDownLatch(2);
+        final CerberusSecretSource failing =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        source -> {
+                            throw new IllegalStateException("boom");
+                        },
+                        "app/failing/config");
+        final AtomicInteger loads = new AtomicInteger();
+        final CerberusSecretSource healthy =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        source -> {
+                            loads.incrementAndGet();
+                            refreshed.countDown();
+                            return Collections.emptyMap();
+                        },
+                        "app/healthy/config");
+
+        subject.register(failing, 10, TimeUnit.MILLISECONDS);
+        subject.register(healthy, 10, TimeUnit.MILLISECONDS);
+
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loads.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void source_throwing_an_error_does_not_stop_the_cycle() throws Exception {
+        final CountDownLatch refreshed = new CountDownLatch(2);
+        final CerberusSecretSource failing =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        source -> {
+                            throw new NoClassDefFoundError("boom");
+                        },
+                        "app/failing/config");
+        final CerberusSecretSource healthy =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        source -> {
+                            refreshed.countDown();
+                            return Collections.emptyMap();
+                        },
+                        "app/healthy/config");
+
+        subject.register(failing, 10, TimeUnit.MILLISECONDS);
+        subject.register(healthy, 10, TimeUnit.MILLISECONDS);
+
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private CerberusSecretSource newSource(final CerberusClient client, final AtomicInteger loads) {
+        return new CerberusSecretSource(
+                client,
+                source -> {
+                    loads.incrementAndGet();
+                    return Collections.emptyMap();
+                },
+                "app/foobinator/config");
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusProperty */
+public class CerberusPropertyTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private CerberusClient cerberusClient;
+
+    private CerberusSecretSource source;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        source = new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+    }
+
+    @Test
+    public void properties_are_parsed_when_snapshot_is_published() {
+        final CerberusProperty<Integer> poolSize = source.getIntProperty("poolSize", 1);
+        final CerberusProperty<Long> maxBytes = source.getLongProperty("maxBytes", 0L);
+        final CerberusProperty<Boolean> enabled = source.getBooleanProperty("enabled", false);
+        final CerberusProperty<Duration> timeout =
+                source.getDurationProperty("timeout", Duration.ZERO);
+        final CerberusProperty<List<String>> hosts =
+                source.getListProperty("hosts", Collections.<String>emptyList());
+        assertThat(poolSize.get()).isEqualTo(1);
+
+        givenSecrets(
+                "poolSize", " 20 ",
+                "maxBytes", "4294967296",
+                "enabled", "TRUE",
+                "timeout", "PT1.5S",
+                "hosts", "a.example.com, b.example.com,,");
+        source.refresh();
+
+        assertThat(poolSize.get()).isEqualTo(20);
+        assertThat(maxBytes.get()).isEqualTo(4294967296L);
+        assertThat(enabled.get()).isTrue();
+        assertThat(timeout.get()).isEqualTo(Duration.ofMillis(1500));
+        assertThat(hosts.get()).isEqualTo(Arrays.asList("a.example.com", "b.example.com"));
+    }
+
+    @Test
+    public void property_created_after_refresh_uses_current_snapshot() {
+        givenSecrets("timeout", "250");
+        source.refresh();
+
+        assertThat(source.getDurationProperty("timeout", Duration.ZERO).get())
+                .isEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    public void invalid_or_removed_values_fall_back_to_default() {
+        givenSecrets("poolSize", "twenty", "enabled", "true");
+        source.refresh();
+        final CerberusProperty<Integer> poolSize = source.getIntProperty("poolSize", 5);
+        final CerberusProperty<Boolean> enabled = source.getBooleanProperty("enabled", false);
+        assertThat(poolSize.get()).isEqualTo(5);
+        assertThat(enabled.get()).isTrue();
+
+        givenSecrets("poolSize", "twenty");
+        source.refresh();
+
+        assertThat(enabled.get()).isFalse();
+    }
+
+    @Test
+    public void bound_handle_is_shared_and_only_rewritten_when_its_key_changes() {
+        givenSecrets("hmacKey", new String("secret"), "other", "1");
+        source.refresh();
+        final CerberusProperty<String> hmacKey = source.bind("hmacKey");
+        final String value = hmacKey.get();
+        assertThat(source.bind("hmacKey")).isSameAs(hmacKey);
+        assertThat(value).isEqualTo("secret");
+
+        givenSecrets("hmacKey", new String("secret"), "other", "2");
+        source.refresh();
+
+        assertThat(hmacKey.get()).isSameAs(value);
+
+        givenSecrets("other", "2");
+        source.refresh();
+
+        assertThat(hmacKey.get()).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_bind_with_null_key() {
+        source.bind(null);
+    }
+
+    private void givenSecrets(String... keyValues) {
+        final Map<String, String> data = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            data.put(keyValues[i], keyValues[i + 1]);
+        }
+        when(cerberusClient.read(PATH)).thenReturn(new CerberusResponse().setData(data));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.CerberusServerException;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import javax.management.MBeanServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusSecretSourceManagement */
+public class CerberusSecretSourceManagementTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private CerberusClient cerberusClient;
+
+    private CerberusSecretSource source;
+
+    private CerberusSecretSourceManagement management;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        source = new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        management = CerberusSecretSourceManagement.register(source, "test");
+    }
+
+    @After
+    public void teardown() {
+        management.unregister();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_register_with_null_source() {
+        CerberusSecretSourceManagement.register(null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_register_twice_with_the_same_name() {
+        CerberusSecretSourceManagement.register(source, "test");
+    }
+
+    @Test
+    public void exposes_the_source_on_the_platform_mbean_server() throws Exception {
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("foo", "bar")));
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertThat(server.getAttribute(management.getObjectName(), "SnapshotAgeMillis"))
+                .isEqualTo(-1L);
+
+        source.refresh();
+
+        assertThat(server.getAttribute(management.getObjectName(), "KeyCount")).isEqualTo(1);
+        assertThat(server.getAttribute(management.getObjectName(), "SnapshotVersion"))
+                .isEqualTo(1L);
+        assertThat((Long) server.getAttribute(management.getObjectName(), "SnapshotAgeMillis"))
+                .isGreaterThanOrEqualTo(0L);
+        assertThat((String[]) server.getAttribute(management.getObjectName(), "SlowestPaths"))
+                .hasSize(1);
+        assertThat(management.getSlowestPaths()[0]).startsWith(PATH + " last=");
+    }
+
+    @Test
+    public void paused_source_keeps_its_snapshot_until_forced() {
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("foo", "1")))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("foo", "2")));
+        source.refresh();
+
+        management.pause();
+
+        assertThat(management.isPaused()).isTrue();
+        assertThat(source.refresh().get("foo")).isEqualTo("1");
+        verify(cerberusClient, times(1)).read(PATH);
+        assertThat(management.refresh()).isEqualTo(2);
+        assertThat(source.getCurrentSnapshot().get("foo")).isEqualTo("2");
+
+        management.resume();
+
+        assertThat(source.isPaused()).isFalse();
+    }
+
+    @Test
+    public void counts_failed_requests_per_path() {
+        when(cerberusClient.read(PATH))
+                .thenThrow(
+                        new CerberusServerException(503, Collections.singletonList("unavailable")));
+
+        try {
+            source.refresh();
+        } catch (CerberusServerException e) {
+            assertThat(e.getCode()).isEqualTo(503);
+        }
+
+        final Map<String, Long> errors = management.getPathErrorCounts();
+        assertThat(errors).containsEntry(PATH, 1L);
+        assertThat(management.getFailedPollCount()).isEqualTo(1);
+        assertThat(management.dumpPathTimings()).contains("requests=1 errors=1");
+
+        management.resetPathTimings();
+
+        assertThat(management.getPathErrorCounts()).isEmpty();
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.CerberusServerException;
+import com.nike.cerberus.client.model.CerberusResponse;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusSecretSource */
+public class CerberusSecretSourceTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private static final String OTHER_PATH = "app/foobinator/other";
+
+    private CerberusClient cerberusClient;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_client() {
+        new CerberusSecretSource(null, new FlatSecretLoader(), PATH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_loader() {
+        new CerberusSecretSource(cerberusClient, null, PATH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_empty_paths() {
+        new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), (Set<String>) null);
+    }
+
+    @Test
+    public void refresh_publishes_what_the_loader_returns() {
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        s -> Collections.<String, Object>singletonMap("path", s.getPaths()),
+                        PATH);
+
+        final CerberusSnapshot snapshot = source.refresh();
+
+        assertThat(snapshot.get("path")).isEqualTo(Collections.singleton(PATH));
+        assertThat(source.getCurrentSnapshot()).isSameAs(snapshot);
+    }
+
+    @Test
+    public void flat_loader_reads_through_the_source() {
+        final Map<String, String> data = Collections.singletonMap("foo", "bar");
+        when(cerberusClient.read(PATH)).thenReturn(new CerberusResponse().setData(data));
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+
+        assertThat(source.refresh().getValues()).containsOnlyKeys("foo");
+        assertThat(source.refresh().get("foo")).isEqualTo("bar");
+    }
+
+    @Test
+    public void cold_prefix_is_served_from_the_last_response_until_due() {
+        final String cold = "app/foobinator/static/config";
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("hot", "1")))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("hot", "2")));
+        when(cerberusClient.read(cold))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("cold", "1")))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("cold", "2")));
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH, cold);
+        source.setRefreshInterval("app/foobinator/static/", 1, TimeUnit.HOURS);
+
+        source.refresh();
+        final CerberusSnapshot snapshot = source.refresh();
+
+        assertThat(snapshot.get("hot")).isEqualTo("2");
+        assertThat(snapshot.get("cold")).isEqualTo("1");
+        verify(cerberusClient, times(2)).read(PATH);
+        verify(cerberusClient, times(1)).read(cold);
+        assertThat(source.getRefreshInterval(cold, TimeUnit.MINUTES)).isEqualTo(60);
+        assertThat(source.getRefreshInterval(PATH, TimeUnit.MINUTES)).isEqualTo(0);
+    }
+
+    @Test
+    public void removed_refresh_interval_reads_on_every_refresh() {
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("foo", "1")))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("foo", "2")));
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        source.setRefreshInterval("app/", 1, TimeUnit.HOURS);
+        source.refresh();
+
+        source.setRefreshInterval("app/", 0, TimeUnit.HOURS);
+
+        assertThat(source.refresh().get("foo")).isEqualTo("2");
+        verify(cerberusClient, times(2)).read(PATH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_set_refresh_interval_negative() {
+        new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH)
+                .setRefreshInterval("app/", -1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void critical_refresh_defers_background_paths() throws Exception {
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("db", "1")));
+        when(cerberusClient.read(OTHER_PATH))
+                .thenReturn(
+                        new CerberusResponse().setData(Collections.singletonMap("report", "1")));
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH, OTHER_PATH);
+        source.setPathPriority(PATH, CerberusSecretSource.PathPriority.CRITICAL);
+
+        final CerberusSnapshot critical = source.refreshCritical();
+
+        assertThat(critical.getValues()).containsOnlyKeys("db");
+        verify(cerberusClient, never()).read(OTHER_PATH);
+
+        final CerberusSnapshot full = source.refreshInBackground().get(5, TimeUnit.SECONDS);
+
+        assertThat(full.getValues()).containsOnlyKeys("db", "report");
+        assertThat(source.getCurrentSnapshot()).isSameAs(full);
+    }
+
+    @Test
+    public void concurrent_refreshes_load_one_at_a_time() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        s -> {
+                            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            try {
+                                if (loads.incrementAndGet() == 1) {
+                                    started.countDown();
+                                    released.await(5, TimeUnit.SECONDS);
+                                }
+                                return Collections.<String, Object>singletonMap(
+                                        "load", loads.get());
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            } finally {
+                                inFlight.decrementAndGet();
+                            }
+                        },
+                        PATH);
+
+        final CompletableFuture<CerberusSnapshot> first = source.refreshInBackground();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        final CompletableFuture<CerberusSnapshot> second = source.refreshInBackground();
+        Thread.sleep(100);
+
+        assertThat(loads.get()).isEqualTo(1);
+
+        released.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS).getVersion())
+                .isGreaterThan(first.get(5, TimeUnit.SECONDS).getVersion());
+        assertThat(source.getCurrentSnapshot()).isSameAs(second.get());
+        assertThat(maxInFlight.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void critical_refresh_after_first_snapshot_loads_everything() {
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("db", "1")));
+        when(cerberusClient.read(OTHER_PATH))
+                .thenReturn(
+                        new CerberusResponse().setData(Collections.singletonMap("report", "1")));
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH, OTHER_PATH);
+        source.refresh();
+        source.setPathPriority(PATH, CerberusSecretSource.PathPriority.CRITICAL);
+
+        assertThat(source.refreshCritical().getValues()).containsOnlyKeys("db", "report");
+    }
+
+    @Test
+    public void folders_leading_to_critical_paths_are_not_deferred() {
+        final List<String> paths =
+                Arrays.asList(
+                        "app/",
+                        "app/sdb/",
+                        "app/sdb/db/primary",
+                        "app/sdb/db/replica",
+                        "app/sdb/x");
+        final Map<String, Object> deferred = new HashMap<>();
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient,
+                        s -> {
+                            paths.forEach(path -> deferred.put(path, s.isDeferred(path)));
+                            return Collections.singletonMap("loaded", "true");
+                        },
+                        "app/sdb/");
+        source.setPathPriority("app/sdb/db/", CerberusSecretSource.PathPriority.CRITICAL);
+        source.setPathPriority("app/sdb/db/replica", CerberusSecretSource.PathPriority.BACKGROUND);
+
+        source.refreshCritical();
+
+        assertThat(deferred)
+                .containsEntry("app/", false)
+                .containsEntry("app/sdb/", false)
+                .containsEntry("app/sdb/db/primary", false)
+                .containsEntry("app/sdb/db/replica", true)
+                .containsEntry("app/sdb/x", true);
+        assertThat(source.isDeferred("app/sdb/x")).isFalse();
+    }
+
+    @Test
+    public void overrun_poll_keeps_the_previous_snapshot() {
+        final CerberusSecretSource source = sourceWithSlowFirstPath();
+        final CerberusSnapshot previous = source.refresh();
+        source.setPollDeadline(10, TimeUnit.MILLISECONDS);
+
+        assertThat(source.refresh()).isSameAs(previous);
+
+        assertThat(source.getPollOverrunCount()).isEqualTo(1);
+        verify(cerberusClient, times(1)).read(OTHER_PATH);
+    }
+
+    @Test
+    public void overrun_poll_merges_partial_results() {
+        final CerberusSecretSource source = sourceWithSlowFirstPath();
+        source.setPollDeadline(1, TimeUnit.HOURS, CerberusSecretSource.OverrunMode.MERGE_PARTIAL);
+        source.refresh();
+        source.setPollDeadline(
+                10, TimeUnit.MILLISECONDS, CerberusSecretSource.OverrunMode.MERGE_PARTIAL);
+
+        final CerberusSnapshot snapshot = source.refresh();
+
+        assertThat(snapshot.get("first")).isEqualTo("2");
+        assertThat(snapshot.get("other")).isEqualTo("1");
+        assertThat(source.getPollOverrunCount()).isEqualTo(1);
+        verify(cerberusClient, times(1)).read(OTHER_PATH);
+    }
+
+    @Test(expected = CerberusDeadlineExceededException.class)
+    public void overrun_first_poll_fails() {
+        final CerberusSecretSource source = sourceWithSlowFirstPath();
+        source.setPollDeadline(1, TimeUnit.NANOSECONDS);
+
+        source.refresh();
+    }
+
+    private CerberusSecretSource sourceWithSlowFirstPath() {
+        final Map<String, String> first = new HashMap<>();
+        when(cerberusClient.read(PATH))
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(first.isEmpty() ? 0 : 50);
+                            first.put("first", Integer.toString(first.size() + 1));
+                            return new CerberusResponse().setData(new HashMap<>(first));
+                        });
+        when(cerberusClient.read(OTHER_PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("other", "1")))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("other", "2")));
+        return new CerberusSecretSource(
+                cerberusClient,
+                s -> {
+                    final Map<String, Object> values = new HashMap<>();
+                    values.putAll(s.read(PATH).getData());
+                    values.putAll(s.read(OTHER_PATH).getData());
+                    return values;
+                },
+                PATH,
+                OTHER_PATH);
+    }
+
+    @Test
+    public void open_circuit_falls_back_to_last_good_snapshot() {
+        final Map<String, String> data = Collections.singletonMap("foo", "bar");
+        final CerberusServerException unavailable =
+                new CerberusServerException(503, Collections.singletonList("unavailable"));
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(data))
+                .thenThrow(unavailable);
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        source.setCircuitBreaker(openAfterOneFailure());
+        final CerberusSnapshot good = source.refresh();
+
+        try {
+            source.refresh();
+        } catch (CerberusServerException e) {
+            assertThat(e.getCode()).isEqualTo(503);
+        }
+
+        assertThat(source.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(source.refresh()).isSameAs(good);
+        verify(cerberusClient, times(2)).read(PATH);
+    }
+
+    @Test(expected = CallNotPermittedException.class)
+    public void open_circuit_without_snapshot_fails_fast() {
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        source.setCircuitBreaker(openAfterOneFailure());
+        source.getCircuitBreaker().transitionToOpenState();
+
+        source.refresh();
+    }
+
+    @Test
+    public void refresh_opens_a_span_per_request_under_the_poll_span() {
+        when(cerberusClient.read(PATH))
+                .thenReturn(new CerberusResponse().setData(Collections.singletonMap("foo", "bar")));
+        final RecordingTracer tracer = new RecordingTracer();
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        source.setTracer(tracer);
+
+        source.refresh();
+
+        assertThat(tracer.spans).hasSize(2);
+        final RecordedSpan read = tracer.spans.get(1);
+        assertThat(read.name).isEqualTo(CerberusTracer.READ);
+        assertThat(read.parent).isSameAs(tracer.spans.get(0));
+        assertThat(read.attributes)
+                .containsEntry(CerberusSpan.PATH, PATH)
+                .containsEntry(CerberusSpan.DEPTH, 2L)
+                .containsEntry(CerberusSpan.BYTES, 6L)
+                .containsEntry(CerberusSpan.STATUS, "ok");
+        assertThat(read.ended).isTrue();
+        assertThat(tracer.spans.get(0).name).isEqualTo(CerberusTracer.POLL);
+        assertThat(tracer.spans.get(0).ended).isTrue();
+    }
+
+    @Test
+    public void failed_request_span_carries_the_status_code() {
+        final CerberusServerException notFound =
+                new CerberusServerException(404, Collections.singletonList("not found"));
+        when(cerberusClient.read(PATH)).thenThrow(notFound);
+        final RecordingTracer tracer = new RecordingTracer();
+        final CerberusSecretSource source =
+                new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        source.setTracer(tracer);
+
+        try {
+            source.refresh();
+        } catch (CerberusServerException e) {
+            assertThat(e).isSameAs(notFound);
+        }
+
+        assertThat(tracer.spans.get(1).attributes).containsEntry(CerberusSpan.STATUS, "404");
+        assertThat(tracer.spans.get(1).error).isSameAs(notFound);
+        assertThat(tracer.spans.get(0).error).isSameAs(notFound);
+    }
+
+    private CircuitBreaker openAfterOneFailure() {
+        return CircuitBreaker.of(
+                "test",
+                CircuitBreakerConfig.custom()
+                        .slidingWindowSize(1)
+                        .minimumNumberOfCalls(1)
+                        .recordException(CerberusCircuitBreakers::isFailure)
+                        .build());
+    }
+
+    static class RecordingTracer implements CerberusTracer {
+
+        final List<RecordedSpan> spans = new ArrayList<>();
+
+        @Override
+        public CerberusSpan startSpan(final String name, final CerberusSpan parent) {
+            final RecordedSpan span = new RecordedSpan(name, parent);
+            spans.add(span);
+            return span;
+        }
+    }
+
+    static class RecordedSpan implements CerberusSpan {
+
+        final String name;
+
+        final CerberusSpan parent;
+
+        final Map<String, Object> attributes = new HashMap<>();
+
+        Throwable error;
+
+        boolean ended;
+
+        RecordedSpan(final String name, final CerberusSpan parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        @Override
+        public void setAttribute(final String key, final String value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void setAttribute(final String key, final long value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void recordError(final Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void end() {
+            ended = true;
+        }
+    }
+}
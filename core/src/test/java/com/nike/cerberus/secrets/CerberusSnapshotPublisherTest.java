@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/** Test class for CerberusSnapshotPublisher */
+public class CerberusSnapshotPublisherTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private CerberusClient cerberusClient;
+
+    private CerberusSecretSource source;
+
+    private RecordingSubscriber subscriber;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        source = new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+        subscriber = new RecordingSubscriber();
+    }
+
+    @Test
+    public void subscriber_receives_current_snapshot_on_request() {
+        givenSecrets("username", "alice", "password", "one");
+        source.refresh();
+
+        source.snapshots(Runnable::run).subscribe(subscriber);
+        assertThat(subscriber.received).isEmpty();
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.received).hasSize(1);
+        assertThat(subscriber.received.get(0).getValues())
+                .containsEntry("username", "alice")
+                .containsEntry("password", "one");
+    }
+
+    @Test
+    public void unchanged_refresh_is_not_published() {
+        givenSecrets("username", "alice", "password", "one");
+        source.snapshots(Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        source.refresh();
+        source.refresh();
+
+        assertThat(subscriber.received).hasSize(1);
+        assertThat(subscriber.received.get(0).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void changed_keys_are_merged_while_subscriber_has_no_demand() {
+        givenSecrets("username", "alice", "password", "one");
+        source.refresh();
+        source.snapshots(Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        givenSecrets("username", "bob", "password", "one");
+        source.refresh();
+        givenSecrets("username", "bob", "password", "two");
+        source.refresh();
+        assertThat(subscriber.received).hasSize(1);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.received).hasSize(2);
+        final CerberusSnapshot latest = subscriber.received.get(1);
+        assertThat(latest.getVersion()).isEqualTo(3);
+        assertThat(latest.getChangedKeys()).containsOnly("username", "password");
+        assertThat(latest.get("password")).isEqualTo("two");
+    }
+
+    @Test
+    public void cancelled_subscriber_receives_nothing() {
+        givenSecrets("username", "alice", "password", "one");
+        source.snapshots(Runnable::run).subscribe(subscriber);
+        subscriber.subscription.cancel();
+
+        source.refresh();
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.received).isEmpty();
+    }
+
+    @Test
+    public void non_positive_request_signals_error() {
+        source.snapshots(Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void givenSecrets(String... keyValues) {
+        final Map<String, String> data = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            data.put(keyValues[i], keyValues[i + 1]);
+        }
+        when(cerberusClient.read(PATH)).thenReturn(new CerberusResponse().setData(data));
+    }
+
+    private static class RecordingSubscriber implements Subscriber<CerberusSnapshot> {
+
+        private final List<CerberusSnapshot> received = new ArrayList<>();
+
+        private Subscription subscription;
+
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(CerberusSnapshot snapshot) {
+            received.add(snapshot);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {}
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cerberus.okhttp3.OkHttpClient;
+import cerberus.okhttp3.Request;
+import cerberus.okhttp3.Response;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusTransferStats */
+public class CerberusTransferStatsTest {
+
+    private static final String BODY =
+            new String(new char[4096]).replace('\0', 'a') + "{\"data\":{\"foo\":\"bar\"}}";
+
+    private HttpServer server;
+
+    private String url;
+
+    private CerberusTransferStats stats;
+
+    private OkHttpClient httpClient;
+
+    @Before
+    public void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(
+                "/",
+                exchange -> {
+                    final byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+                    final String acceptEncoding =
+                            exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                    final boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+                    final boolean chunked = exchange.getRequestURI().getPath().endsWith("chunked");
+                    final byte[] sent = gzip ? gzip(body) : body;
+                    if (gzip) {
+                        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    }
+                    exchange.sendResponseHeaders(200, chunked ? 0 : sent.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(sent);
+                    }
+                });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/secret/app/demo/";
+        stats = new CerberusTransferStats();
+        httpClient =
+                new OkHttpClient.Builder()
+                        .addInterceptor(stats.applicationInterceptor())
+                        .addNetworkInterceptor(stats.networkInterceptor())
+                        .build();
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void counts_compressed_and_uncompressed_bytes() throws Exception {
+        assertThat(get(url + "config")).isEqualTo(BODY);
+        assertThat(get(url + "chunked")).isEqualTo(BODY);
+
+        assertThat(stats.getResponseCount()).isEqualTo(2);
+        assertThat(stats.getUncompressedBytes()).isEqualTo(2L * BODY.length());
+        assertThat(stats.getCompressedBytes()).isGreaterThan(0L).isLessThan(BODY.length());
+    }
+
+    @Test
+    public void attributes_bytes_to_the_poll_of_the_current_thread() throws Exception {
+        get(url + "config");
+        CerberusTransferStats.beginPoll();
+
+        get(url + "config");
+        final long[] transferred = CerberusTransferStats.endPoll();
+
+        assertThat(transferred[0]).isEqualTo(stats.getCompressedBytes() / 2);
+        assertThat(transferred[1]).isEqualTo(BODY.length());
+        assertThat(CerberusTransferStats.endPoll()).containsExactly(0L, 0L);
+    }
+
+    @Test
+    public void body_is_counted_as_it_is_read_rather_than_buffered() throws Exception {
+        final Request request = new Request.Builder().url(url + "chunked").build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            assertThat(stats.getUncompressedBytes()).isEqualTo(0L);
+            assertThat(response.body().string()).isEqualTo(BODY);
+        }
+
+        assertThat(stats.getUncompressedBytes()).isEqualTo(BODY.length());
+    }
+
+    private String get(final String url) throws Exception {
+        final Request request = new Request.Builder().url(url).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+
+    private static byte[] gzip(final byte[] body) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/** Test class for OffHeapValueMap */
+public class OffHeapValueMapTest {
+
+    @Test
+    public void values_are_decoded_on_access() {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("password", "pässword123");
+        values.put("empty", "");
+        values.put("count", 42);
+
+        final OffHeapValueMap subject = new OffHeapValueMap(values);
+
+        assertThat(subject).hasSize(3);
+        assertThat(subject.get("password")).isEqualTo("pässword123");
+        assertThat(subject.get("empty")).isEqualTo("");
+        assertThat(subject.get("count")).isEqualTo(42);
+        assertThat(subject.get("missing")).isNull();
+        assertThat(subject).isEqualTo(values);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void values_cannot_be_read_after_zeroize() {
+        final OffHeapValueMap subject =
+                new OffHeapValueMap(Collections.singletonMap("password", "password123"));
+
+        subject.zeroize();
+
+        subject.get("password");
+    }
+
+    @Test
+    public void reader_racing_a_zeroize_never_sees_zeroed_bytes() throws Exception {
+        final String password = new String(new char[1 << 20]).replace('\0', 'x');
+        for (int i = 0; i < 20; i++) {
+            final OffHeapValueMap subject =
+                    new OffHeapValueMap(Collections.singletonMap("password", password));
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final CountDownLatch reading = new CountDownLatch(1);
+            final Thread reader =
+                    new Thread(
+                            () -> {
+                                try {
+                                    while (true) {
+                                        reading.countDown();
+                                        assertThat(password.equals(subject.get("password")))
+                                                .isTrue();
+                                    }
+                                } catch (IllegalStateException e) {
+                                    // zeroized
+                                } catch (Throwable t) {
+                                    failure.set(t);
+                                }
+                            });
+            reader.start();
+            reading.await();
+            subject.zeroize();
+            reader.join();
+
+            assertThat(failure.get()).isNull();
+        }
+    }
+
+    @Test
+    public void superseded_snapshot_is_zeroized() {
+        final CerberusClient cerberusClient = mock(CerberusClient.class);
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient, new FlatSecretLoader(), "app/foobinator/config");
+        source.setOffHeapValues(true);
+        source.setReleaseDelay(0, TimeUnit.MILLISECONDS);
+
+        when(cerberusClient.read("app/foobinator/config"))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("password", "one")));
+        final CerberusSnapshot first = source.refresh();
+        when(cerberusClient.read("app/foobinator/config"))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("password", "two")));
+        final CerberusSnapshot second = source.refresh();
+
+        assertThat(((OffHeapValueMap) first.getValues()).isZeroized()).isTrue();
+        assertThat(second.get("password")).isEqualTo("two");
+    }
+
+    @Test
+    public void superseded_snapshot_stays_readable_during_release_delay() throws Exception {
+        final CerberusClient cerberusClient = mock(CerberusClient.class);
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient, new FlatSecretLoader(), "app/foobinator/config");
+        source.setOffHeapValues(true);
+        source.setReleaseDelay(50, TimeUnit.MILLISECONDS);
+
+        when(cerberusClient.read("app/foobinator/config"))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("password", "one")));
+        final CerberusSnapshot first = source.refresh();
+        when(cerberusClient.read("app/foobinator/config"))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("password", "two")));
+        source.refresh();
+
+        assertThat(first.get("password")).isEqualTo("one");
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!((OffHeapValueMap) first.getValues()).isZeroized()
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(((OffHeapValueMap) first.getValues()).isZeroized()).isTrue();
+    }
+
+    @Test
+    public void reader_racing_a_publish_sees_a_readable_snapshot() throws Exception {
+        final CerberusClient cerberusClient = mock(CerberusClient.class);
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient, new FlatSecretLoader(), "app/foobinator/config");
+        source.setOffHeapValues(true);
+        when(cerberusClient.read("app/foobinator/config"))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("password", "initial")));
+        source.refresh();
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reader =
+                new Thread(
+                        () -> {
+                            try {
+                                while (!done.get()) {
+                                    final CerberusSnapshot snapshot = source.getCurrentSnapshot();
+                                    Thread.yield();
+                                    assertThat(snapshot.get("password")).isNotNull();
+                                }
+                            } catch (Throwable t) {
+                                failure.set(t);
+                            }
+                        });
+        reader.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                when(cerberusClient.read("app/foobinator/config"))
+                        .thenReturn(
+                                new CerberusResponse()
+                                        .setData(
+                                                Collections.singletonMap(
+                                                        "password", "password" + i)));
+                source.refresh();
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+
+        assertThat(failure.get()).isNull();
+    }
+}
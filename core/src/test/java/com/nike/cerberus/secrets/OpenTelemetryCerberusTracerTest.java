@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for OpenTelemetryCerberusTracer */
+public class OpenTelemetryCerberusTracerTest {
+
+    private Tracer tracer;
+
+    private SpanBuilder spanBuilder;
+
+    private Span span;
+
+    private OpenTelemetryCerberusTracer subject;
+
+    @Before
+    public void setup() {
+        tracer = mock(Tracer.class);
+        spanBuilder = mock(SpanBuilder.class);
+        span = mock(Span.class);
+        when(tracer.spanBuilder(CerberusTracer.POLL)).thenReturn(spanBuilder);
+        when(tracer.spanBuilder(CerberusTracer.READ)).thenReturn(spanBuilder);
+        when(spanBuilder.setSpanKind(SpanKind.INTERNAL)).thenReturn(spanBuilder);
+        when(spanBuilder.setSpanKind(SpanKind.CLIENT)).thenReturn(spanBuilder);
+        when(spanBuilder.startSpan()).thenReturn(span);
+        subject = new OpenTelemetryCerberusTracer(tracer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_tracer() {
+        new OpenTelemetryCerberusTracer(null);
+    }
+
+    @Test
+    public void poll_span_uses_the_current_context() {
+        final CerberusSpan poll = subject.startSpan(CerberusTracer.POLL, null);
+        poll.setAttribute(CerberusSpan.STATUS, "ok");
+        poll.end();
+
+        verify(spanBuilder, never()).setParent(any());
+        verify(span).setAttribute(CerberusSpan.STATUS, "ok");
+        verify(span).end();
+    }
+
+    @Test
+    public void errors_mark_the_span_as_failed() {
+        final IllegalStateException error = new IllegalStateException("boom");
+
+        final CerberusSpan read = subject.startSpan(CerberusTracer.READ, null);
+        read.recordError(error);
+
+        verify(spanBuilder).setSpanKind(SpanKind.CLIENT);
+        verify(span).recordException(error);
+        verify(span).setStatus(StatusCode.ERROR);
+        assertThat(read).isNotNull();
+    }
+}
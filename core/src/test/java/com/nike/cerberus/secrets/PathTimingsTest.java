@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/** Test class for PathTimings */
+public class PathTimingsTest {
+
+    @Test
+    public void slowest_paths_are_sorted_by_last_duration() {
+        final PathTimings subject = new PathTimings();
+        subject.record("app/fast/config", 1_000_000, false);
+        subject.record("app/slow/config", 30_000_000, false);
+        subject.record("app/medium/config", 20_000_000, true);
+
+        assertThat(subject.getSlowestPaths(2))
+                .containsExactly(
+                        "app/slow/config last=30ms max=30ms requests=1 errors=0",
+                        "app/medium/config last=20ms max=20ms requests=1 errors=1");
+    }
+
+    @Test
+    public void slowest_paths_stay_sorted_while_requests_are_recorded() throws Exception {
+        final PathTimings subject = new PathTimings();
+        final AtomicBoolean done = new AtomicBoolean();
+        final Thread recorder =
+                new Thread(
+                        () -> {
+                            final ThreadLocalRandom random = ThreadLocalRandom.current();
+                            while (!done.get()) {
+                                subject.record(
+                                        "app/path" + random.nextInt(2_000) + "/config",
+                                        random.nextLong(1_000_000_000),
+                                        false);
+                            }
+                        });
+        recorder.start();
+        try {
+            while (subject.getSlowestPaths(2_000).size() < 2_000) {
+                Thread.yield();
+            }
+            for (int i = 0; i < 100; i++) {
+                final List<String> slowest = subject.getSlowestPaths(2_000);
+                long previous = Long.MAX_VALUE;
+                for (final String summary : slowest) {
+                    final long last =
+                            Long.parseLong(
+                                    summary.substring(
+                                            summary.indexOf("last=") + 5,
+                                            summary.indexOf("ms max=")));
+                    assertThat(last).isLessThanOrEqualTo(previous);
+                    previous = last;
+                }
+            }
+        } finally {
+            done.set(true);
+            recorder.join();
+        }
+    }
+}
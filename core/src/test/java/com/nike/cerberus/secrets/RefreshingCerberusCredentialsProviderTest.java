@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClientException;
+import com.nike.cerberus.client.auth.CerberusCredentials;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for RefreshingCerberusCredentialsProvider */
+public class RefreshingCerberusCredentialsProviderTest {
+
+    private CerberusCredentialsProvider delegate;
+
+    private CerberusCredentials credentials;
+
+    @Before
+    public void setup() {
+        delegate = mock(CerberusCredentialsProvider.class);
+        credentials = new TokenCerberusCredentials("token");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_delegate() {
+        new RefreshingCerberusCredentialsProvider(null, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void authenticates_when_created() {
+        when(delegate.getCredentials()).thenReturn(credentials);
+
+        try (RefreshingCerberusCredentialsProvider subject =
+                new RefreshingCerberusCredentialsProvider(delegate, 1, TimeUnit.HOURS)) {
+            verify(delegate, times(1)).getCredentials();
+            assertThat(subject.getCredentials()).isSameAs(credentials);
+        }
+    }
+
+    @Test
+    public void keeps_refreshing_after_a_failure() throws Exception {
+        final CountDownLatch refreshed = new CountDownLatch(3);
+        when(delegate.getCredentials())
+                .thenThrow(new CerberusClientException("sts unavailable"))
+                .thenAnswer(
+                        invocation -> {
+                            refreshed.countDown();
+                            return credentials;
+                        });
+
+        try (RefreshingCerberusCredentialsProvider subject =
+                new RefreshingCerberusCredentialsProvider(delegate, 10, TimeUnit.MILLISECONDS)) {
+            assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    public void waits_for_the_first_authentication_at_most_the_timeout() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getCredentials())
+                .thenAnswer(
+                        invocation -> {
+                            release.await();
+                            return credentials;
+                        });
+
+        final long start = System.nanoTime();
+        try (RefreshingCerberusCredentialsProvider subject =
+                new RefreshingCerberusCredentialsProvider(
+                        delegate, 1, TimeUnit.HOURS, 50, TimeUnit.MILLISECONDS)) {
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for SharedSnapshotLoader */
+public class SharedSnapshotLoaderTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private final SecretKey key = new SecretKeySpec(new byte[16], "AES");
+
+    private Path directory;
+
+    private Path file;
+
+    private CerberusClient leaderClient;
+
+    private CerberusClient followerClient;
+
+    private SharedSnapshotLoader leader;
+
+    private SharedSnapshotLoader follower;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("cerberus-shared-");
+        file = directory.resolve("snapshot");
+        leaderClient = mock(CerberusClient.class);
+        followerClient = mock(CerberusClient.class);
+        leader = new SharedSnapshotLoader(new FlatSecretLoader(), file, key);
+        follower = new SharedSnapshotLoader(new FlatSecretLoader(), file, key);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        leader.close();
+        follower.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory.resolve("snapshot.lock"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void follower_reads_snapshot_shared_by_leader() {
+        respond(leaderClient, "one");
+
+        assertThat(leader.load(source(leaderClient))).containsEntry("password", "one");
+        assertThat(follower.load(source(followerClient))).containsEntry("password", "one");
+
+        assertThat(leader.isLeader()).isTrue();
+        assertThat(follower.isLeader()).isFalse();
+        assertThat(follower.getSharedVersion()).isEqualTo(1);
+        verify(followerClient, never()).read(PATH);
+    }
+
+    @Test
+    public void follower_picks_up_new_version() {
+        respond(leaderClient, "one");
+        leader.load(source(leaderClient));
+        follower.load(source(followerClient));
+
+        respond(leaderClient, "two");
+        leader.load(source(leaderClient));
+
+        assertThat(follower.load(source(followerClient))).containsEntry("password", "two");
+        assertThat(follower.getSharedVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void unchanged_values_keep_version() {
+        respond(leaderClient, "one");
+        leader.load(source(leaderClient));
+        follower.load(source(followerClient));
+        leader.load(source(leaderClient));
+
+        assertThat(follower.load(source(followerClient))).containsEntry("password", "one");
+        assertThat(leader.getSharedVersion()).isEqualTo(1);
+        assertThat(follower.getSharedVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void follower_loads_from_cerberus_until_snapshot_is_shared() {
+        when(leaderClient.read(PATH)).thenThrow(new IllegalStateException("unavailable"));
+        try {
+            leader.load(source(leaderClient));
+        } catch (RuntimeException e) {
+            // the leader holds the lock but has nothing to share yet
+        }
+        respond(followerClient, "own");
+
+        assertThat(follower.load(source(followerClient))).containsEntry("password", "own");
+        assertThat(follower.isLeader()).isFalse();
+    }
+
+    @Test
+    public void leader_returns_loaded_values_when_sharing_fails() throws Exception {
+        // a directory in place of the snapshot file makes every write fail
+        Files.createDirectory(file);
+        respond(leaderClient, "one");
+
+        assertThat(leader.load(source(leaderClient))).containsEntry("password", "one");
+        assertThat(leader.isLeader()).isTrue();
+        assertThat(leader.getSharedVersion()).isEqualTo(0);
+    }
+
+    @Test
+    public void follower_takes_over_when_leader_closes() throws Exception {
+        respond(leaderClient, "one");
+        leader.load(source(leaderClient));
+        follower.load(source(followerClient));
+        leader.close();
+
+        respond(followerClient, "two");
+
+        assertThat(follower.load(source(followerClient))).containsEntry("password", "two");
+        assertThat(follower.isLeader()).isTrue();
+        assertThat(follower.getSharedVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void stale_snapshot_is_loaded_from_cerberus() throws Exception {
+        respond(leaderClient, "one");
+        leader.load(source(leaderClient));
+        follower.setMaxStaleness(1, TimeUnit.MILLISECONDS);
+        respond(followerClient, "own");
+        Thread.sleep(10);
+
+        assertThat(follower.load(source(followerClient))).containsEntry("password", "own");
+    }
+
+    @Test
+    public void follower_reads_consistent_snapshots_while_leader_writes() throws Exception {
+        respond(leaderClient, "one");
+        leader.load(source(leaderClient));
+        final CerberusSecretSource leaderSource = source(leaderClient);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread writer =
+                new Thread(
+                        () -> {
+                            try {
+                                for (int i = 0; !done.get(); i++) {
+                                    respond(leaderClient, i % 2 == 0 ? "two" : "one");
+                                    leader.load(leaderSource);
+                                }
+                            } catch (Throwable t) {
+                                failure.set(t);
+                            }
+                        });
+        writer.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                assertThat(follower.load(source(followerClient)).get("password"))
+                        .isIn("one", "two");
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        verify(followerClient, never()).read(PATH);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void wrong_key_cannot_read_snapshot() throws Exception {
+        respond(leaderClient, "one");
+        leader.load(source(leaderClient));
+        final SharedSnapshotLoader other =
+                new SharedSnapshotLoader(
+                        new FlatSecretLoader(), file, new SecretKeySpec(new byte[32], "AES"));
+        try {
+            other.load(source(followerClient));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void key_must_be_aes() {
+        new SharedSnapshotLoader(
+                new FlatSecretLoader(), file, new SecretKeySpec(new byte[16], "HmacSHA256"));
+    }
+
+    private CerberusSecretSource source(final CerberusClient cerberusClient) {
+        return new CerberusSecretSource(cerberusClient, new FlatSecretLoader(), PATH);
+    }
+
+    private static void respond(final CerberusClient cerberusClient, final String password) {
+        when(cerberusClient.read(PATH))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("password", password)));
+    }
+}
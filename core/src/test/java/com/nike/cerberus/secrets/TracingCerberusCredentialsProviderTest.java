@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.secrets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.auth.CerberusCredentials;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.secrets.CerberusSecretSourceTest.RecordedSpan;
+import com.nike.cerberus.secrets.CerberusSecretSourceTest.RecordingTracer;
+import java.util.Collections;
+import org.junit.Test;
+
+/** Test class for TracingCerberusCredentialsProvider */
+public class TracingCerberusCredentialsProviderTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_tracer() {
+        new TracingCerberusCredentialsProvider(mock(CerberusCredentialsProvider.class), null);
+    }
+
+    @Test
+    public void auth_span_is_nested_in_the_request_span() {
+        final RecordingTracer tracer = new RecordingTracer();
+        final CerberusCredentialsProvider delegate = mock(CerberusCredentialsProvider.class);
+        final CerberusCredentials credentials = new TokenCerberusCredentials("token");
+        when(delegate.getCredentials()).thenReturn(credentials);
+        final TracingCerberusCredentialsProvider provider =
+                new TracingCerberusCredentialsProvider(delegate, tracer);
+
+        final CerberusClient cerberusClient = mock(CerberusClient.class);
+        when(cerberusClient.read("app/foobinator/config"))
+                .thenAnswer(
+                        invocation -> {
+                            assertThat(provider.getCredentials()).isSameAs(credentials);
+                            return new CerberusResponse().setData(Collections.emptyMap());
+                        });
+        final CerberusSecretSource source =
+                new CerberusSecretSource(
+                        cerberusClient, new FlatSecretLoader(), "app/foobinator/config");
+        source.setTracer(tracer);
+
+        source.refresh();
+
+        assertThat(tracer.spans).hasSize(3);
+        final RecordedSpan auth = tracer.spans.get(2);
+        assertThat(auth.name).isEqualTo(CerberusTracer.AUTH);
+        assertThat(auth.parent).isSameAs(tracer.spans.get(1));
+        assertThat(auth.attributes).containsEntry(CerberusSpan.STATUS, "ok");
+        assertThat(auth.ended).isTrue();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.netflix.config.ConcurrentMapConfiguration;
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusListResponse;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Heap footprint and allocation budgets of the configuration loaded by both sources.
+ *
+ * <p>For 1k, 10k and 100k keys, the retained size of the loaded map and of the {@link
+ * ConcurrentMapConfiguration} built from it is measured with JOL, and the bytes allocated by an
+ * unchanged poll with the thread's allocation counter. Each must stay within a per key budget,
+ * configurable through the cerberus.footprint.* system properties.
+ */
+public class ConfigurationFootprintTest {
+
+    private static final int[] KEY_COUNTS = {1_000, 10_000, 100_000};
+
+    private static final int KEYS_PER_NODE = 100;
+
+    private static final String SDB_PATH = "app/footprint/";
+
+    private static final long MAP_BYTES_PER_KEY =
+            Long.getLong("cerberus.footprint.mapBytesPerKey", 400);
+
+    private static final long CONFIG_BYTES_PER_KEY =
+            Long.getLong("cerberus.footprint.configBytesPerKey", 500);
+
+    private static final long POLL_BYTES_PER_KEY =
+            Long.getLong("cerberus.footprint.pollBytesPerKey", 512);
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void flat_source_stays_within_budget() throws Exception {
+        for (final int keyCount : KEY_COUNTS) {
+            final CerberusClient cerberusClient = newClient();
+            final List<String> paths = mockNodes(cerberusClient, keyCount);
+            final CerberusConfigurationSource source =
+                    new CerberusConfigurationSource(cerberusClient, paths.toArray(new String[0]));
+
+            assertWithinBudget("flat", source, source::getConfig, keyCount);
+        }
+    }
+
+    @Test
+    public void namespaced_source_stays_within_budget() throws Exception {
+        for (final int keyCount : KEY_COUNTS) {
+            final CerberusClient cerberusClient = newClient();
+            final List<String> paths = mockNodes(cerberusClient, keyCount);
+            final List<String> leaves = new ArrayList<>();
+            for (final String path : paths) {
+                leaves.add(path.substring(SDB_PATH.length()));
+            }
+            when(cerberusClient.list(SDB_PATH))
+                    .thenReturn(new CerberusListResponse().setKeys(leaves));
+            final NamespacedCerberusConfigurationSource source =
+                    new NamespacedCerberusConfigurationSource(cerberusClient, SDB_PATH);
+
+            assertWithinBudget("namespaced", source, source::getConfig, keyCount);
+        }
+    }
+
+    private void assertWithinBudget(
+            final String name,
+            final BaseCerberusConfigurationSource source,
+            final Supplier<ConcurrentMapConfiguration> config,
+            final int keyCount)
+            throws Exception {
+        // with critical paths getConfig() would return before the other paths have been loaded
+        assertThat(source.hasCriticalPaths())
+                .as("%s source loads every path before getConfig() returns", name)
+                .isFalse();
+        final ConcurrentMapConfiguration configuration = config.get();
+        final Map<String, Object> values = source.getCurrentSnapshot().getValues();
+        assertThat(values).hasSize(keyCount);
+        int configKeys = 0;
+        for (final Iterator<String> keys = configuration.getKeys(); keys.hasNext(); keys.next()) {
+            configKeys++;
+        }
+        assertThat(configKeys).as("%s configuration keys", name).isEqualTo(keyCount);
+
+        final long mapBytes = GraphLayout.parseInstance(values).totalSize();
+        final long configBytes = GraphLayout.parseInstance(configuration).totalSize();
+
+        source.poll(false, null);
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        source.poll(false, null);
+        final long pollBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertThat(mapBytes)
+                .as(
+                        "%s map retained bytes for %d keys, %d B/key",
+                        name, keyCount, mapBytes / keyCount)
+                .isLessThanOrEqualTo(MAP_BYTES_PER_KEY * keyCount);
+        assertThat(configBytes)
+                .as(
+                        "%s configuration retained bytes for %d keys, %d B/key",
+                        name, keyCount, configBytes / keyCount)
+                .isLessThanOrEqualTo(CONFIG_BYTES_PER_KEY * keyCount);
+        assertThat(pollBytes)
+                .as(
+                        "%s bytes allocated per poll for %d keys, %d B/key",
+                        name, keyCount, pollBytes / keyCount)
+                .isLessThanOrEqualTo(POLL_BYTES_PER_KEY * keyCount);
+    }
+
+    /** Stub only mocks do not record invocations, which would otherwise count as allocations. */
+    private static CerberusClient newClient() {
+        return mock(CerberusClient.class, withSettings().stubOnly());
+    }
+
+    /**
+     * Mocks secret nodes of {@value #KEYS_PER_NODE} keys each, returning their paths. A single
+     * answer looks the responses up, as matching a read against one stubbing per path would make
+     * the mock's own allocations grow with the square of the node count.
+     */
+    private static List<String> mockNodes(final CerberusClient cerberusClient, final int keyCount) {
+        final List<String> paths = new ArrayList<>();
+        final Map<String, CerberusResponse> responses = new HashMap<>();
+        for (int node = 0; node * KEYS_PER_NODE < keyCount; node++) {
+            final Map<String, String> data = new HashMap<>();
+            for (int key = node * KEYS_PER_NODE; key < (node + 1) * KEYS_PER_NODE; key++) {
+                data.put("property" + key, "value-" + key);
+            }
+            final String path = SDB_PATH + "node" + node;
+            responses.put(path, new CerberusResponse().setData(data));
+            paths.add(path);
+        }
+        when(cerberusClient.read(anyString()))
+                .thenAnswer(invocation -> responses.get(invocation.<String>getArgument(0)));
+        return paths;
+    }
+}
@@ -16,13 +16,30 @@
 
 package com.nike.cerberus.archaius.client;
 
+import cerberus.okhttp3.ConnectionPool;
+import cerberus.okhttp3.ConnectionSpec;
+import cerberus.okhttp3.Dispatcher;
+import cerberus.okhttp3.OkHttpClient;
+import cerberus.okhttp3.TlsVersion;
 import com.netflix.config.ConfigurationManager;
 import com.nike.cerberus.client.CerberusClient;
 import com.nike.cerberus.client.CerberusClientException;
 import com.nike.cerberus.client.CerberusClientFactory;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
 import com.nike.cerberus.client.auth.DefaultCerberusCredentialsProviderChain;
+import com.nike.cerberus.secrets.CerberusConnectionWarmer;
+import com.nike.cerberus.secrets.CerberusTracer;
+import com.nike.cerberus.secrets.CerberusTransferStats;
+import com.nike.cerberus.secrets.RefreshingCerberusCredentialsProvider;
+import com.nike.cerberus.secrets.TracingCerberusCredentialsProvider;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.configuration.AbstractConfiguration;
 
 /**
@@ -31,6 +48,91 @@ import org.apache.commons.configuration.AbstractConfiguration;
  */
 public class ArchaiusCerberusClientFactory {
 
+    /** Property enabling eager authentication and background token refresh, false by default */
+    public static final String CERBERUS_AUTH_EAGER_PROPERTY = "cerberus.auth.eager";
+
+    /** Property holding the interval of the background token refresh in seconds */
+    public static final String CERBERUS_AUTH_REFRESH_INTERVAL_PROPERTY =
+            "cerberus.auth.refresh.interval.seconds";
+
+    /** Property holding how long client creation waits for eager authentication in milliseconds */
+    public static final String CERBERUS_AUTH_TIMEOUT_PROPERTY = "cerberus.auth.timeout.millis";
+
+    /** Property enabling connection and auth warm-up at client creation, false by default */
+    public static final String CERBERUS_HTTP_PREWARM_PROPERTY = "cerberus.http.prewarm";
+
+    /** Property holding the number of connections opened by the warm-up, 1 by default */
+    public static final String CERBERUS_HTTP_PREWARM_CONNECTIONS_PROPERTY =
+            "cerberus.http.prewarm.connections";
+
+    /** Property holding how long client creation waits for the warm-up in milliseconds */
+    public static final String CERBERUS_HTTP_PREWARM_TIMEOUT_PROPERTY =
+            "cerberus.http.prewarm.timeout.millis";
+
+    /** Default wait for the warm-up, 5 seconds */
+    public static final long DEFAULT_PREWARM_TIMEOUT_MILLIS = 5_000;
+
+    /** Prefix of the properties tuning the HTTP client */
+    public static final String CERBERUS_HTTP_PROPERTY_PREFIX = "cerberus.http";
+
+    /** Property holding the connect timeout of the HTTP client in milliseconds */
+    public static final String CERBERUS_HTTP_CONNECT_TIMEOUT_PROPERTY =
+            "cerberus.http.connect.timeout.millis";
+
+    /** Property holding the read timeout of the HTTP client in milliseconds */
+    public static final String CERBERUS_HTTP_READ_TIMEOUT_PROPERTY =
+            "cerberus.http.read.timeout.millis";
+
+    /** Property holding the write timeout of the HTTP client in milliseconds */
+    public static final String CERBERUS_HTTP_WRITE_TIMEOUT_PROPERTY =
+            "cerberus.http.write.timeout.millis";
+
+    /** Property holding the maximum number of concurrent requests of the HTTP client */
+    public static final String CERBERUS_HTTP_MAX_REQUESTS_PROPERTY = "cerberus.http.max.requests";
+
+    /** Property holding the maximum number of concurrent requests to the Cerberus host */
+    public static final String CERBERUS_HTTP_MAX_REQUESTS_PER_HOST_PROPERTY =
+            "cerberus.http.max.requests.per.host";
+
+    /** Property holding the maximum number of idle connections kept in the pool */
+    public static final String CERBERUS_HTTP_MAX_IDLE_CONNECTIONS_PROPERTY =
+            "cerberus.http.pool.max.idle.connections";
+
+    /** Property holding how long an idle pooled connection is kept alive in milliseconds */
+    public static final String CERBERUS_HTTP_KEEP_ALIVE_PROPERTY =
+            "cerberus.http.pool.keep.alive.millis";
+
+    /** Property enabling counting of compressed and uncompressed bytes, true by default */
+    public static final String CERBERUS_HTTP_TRANSFER_STATS_PROPERTY =
+            "cerberus.http.transfer.stats";
+
+    /** Connect, read and write timeout of the HTTP client, same as the Cerberus client's default */
+    public static final int DEFAULT_HTTP_TIMEOUT_MILLIS = 15_000;
+
+    /** Maximum concurrent requests of the HTTP client, same as the Cerberus client's default */
+    public static final int DEFAULT_MAX_REQUESTS = 200;
+
+    /** Maximum idle pooled connections, same as OkHttp's default */
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    /** Keep-alive of idle pooled connections, same as OkHttp's default of 5 minutes */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 300_000;
+
+    /** TLS 1.2 or newer, the only connections the Cerberus client's own HTTP client allows */
+    public static final ConnectionSpec TLS_1_2_OR_NEWER =
+            new ConnectionSpec.Builder(ConnectionSpec.MODERN_TLS)
+                    .tlsVersions(TlsVersion.TLS_1_3, TlsVersion.TLS_1_2)
+                    .build();
+
+    private static final CerberusTransferStats TRANSFER_STATS = new CerberusTransferStats();
+
+    /**
+     * Refreshing providers shared by the clients of the same Cerberus URL, region, refresh interval
+     * and authentication timeout
+     */
+    private static final ConcurrentMap<String, RefreshingCerberusCredentialsProvider>
+            REFRESHING_PROVIDERS = new ConcurrentHashMap<>();
+
     /**
      * Resolves the Cerberus/Cerberus URL via the {@link ArchaiusCerberusUrlResolver} and creates a
      * new {@link CerberusClient} with the {@link DefaultCerberusCredentialsProviderChain}.
@@ -45,12 +147,48 @@ public class ArchaiusCerberusClientFactory {
      * Resolves the Cerberus/Cerberus URL via the {@link ArchaiusCerberusUrlResolver} and creates a
      * new {@link CerberusClient} with the {@link DefaultCerberusCredentialsProviderChain}.
      *
+     * <p>If {@value #CERBERUS_AUTH_EAGER_PROPERTY} is true, the client authenticates before it is
+     * returned and refreshes its token in the background every {@value
+     * #CERBERUS_AUTH_REFRESH_INTERVAL_PROPERTY} seconds (30 by default). Creation waits at most
+     * {@value #CERBERUS_AUTH_TIMEOUT_PROPERTY} milliseconds (10000 by default) for the first
+     * authentication. Clients of the same URL, region, refresh interval and authentication timeout
+     * share one refreshing provider, which keeps refreshing until the JVM exits.
+     *
+     * <p>If {@value #CERBERUS_HTTP_PREWARM_PROPERTY} is true, the client's connections are opened
+     * and its credentials fetched concurrently before it is returned, waiting at most {@value
+     * #CERBERUS_HTTP_PREWARM_TIMEOUT_PROPERTY} milliseconds, so the first poll does not pay for
+     * DNS, TCP, TLS and authentication.
+     *
+     * <p>The HTTP client's timeouts, dispatcher concurrency and connection pool are tuned with the
+     * {@value #CERBERUS_HTTP_PROPERTY_PREFIX}.* properties, falling back to the Cerberus client's
+     * defaults. The HTTP client built here counts the bytes received into {@link
+     * #getTransferStats()} and into each source's last poll. Only when {@value
+     * #CERBERUS_HTTP_TRANSFER_STATS_PROPERTY} is false and no other HTTP property is set does the
+     * Cerberus client build its own HTTP client. Responses are requested gzip compressed either
+     * way.
+     *
      * @param aur optional ArchaiusCerbersUrlResolver
      * @param configuration optional AbstractConfiguration
      * @return Cerberus client
      */
     public static CerberusClient getClient(
             ArchaiusCerberusUrlResolver aur, AbstractConfiguration configuration) {
+        return getClient(aur, configuration, null);
+    }
+
+    /**
+     * Same as {@link #getClient(ArchaiusCerberusUrlResolver, AbstractConfiguration)}, with every
+     * call for credentials reported as a {@value CerberusTracer#AUTH} span to the given tracer.
+     *
+     * @param aur optional ArchaiusCerbersUrlResolver
+     * @param configuration optional AbstractConfiguration
+     * @param tracer optional CerberusTracer
+     * @return Cerberus client
+     */
+    public static CerberusClient getClient(
+            ArchaiusCerberusUrlResolver aur,
+            AbstractConfiguration configuration,
+            CerberusTracer tracer) {
         if (aur == null) {
             aur = new ArchaiusCerberusUrlResolver();
         }
@@ -74,6 +212,184 @@ public class ArchaiusCerberusClientFactory {
                 new DefaultCerberusCredentialsProviderChain(
                         url, region, xCerberusClientHeaderValue);
 
-        return CerberusClientFactory.getClient(url, dccpc, defaultHeaders);
+        final boolean prewarm = configuration.getBoolean(CERBERUS_HTTP_PREWARM_PROPERTY, false);
+        if (!prewarm && !needsHttpClient(configuration)) {
+            return CerberusClientFactory.getClient(
+                    url,
+                    getCredentialsProvider(url, region, dccpc, configuration, tracer),
+                    defaultHeaders);
+        }
+
+        final OkHttpClient httpClient = newHttpClient(configuration);
+        if (!prewarm) {
+            return CerberusClientFactory.getClient(
+                    url,
+                    getCredentialsProvider(url, region, dccpc, configuration, tracer),
+                    defaultHeaders,
+                    httpClient);
+        }
+
+        final CompletableFuture<Void> connected =
+                CerberusConnectionWarmer.connect(
+                        httpClient,
+                        url,
+                        configuration.getInt(CERBERUS_HTTP_PREWARM_CONNECTIONS_PROPERTY, 1));
+        // eager authentication blocks here while the connections are being opened
+        final CerberusCredentialsProvider provider =
+                getCredentialsProvider(url, region, dccpc, configuration, tracer);
+        final CompletableFuture<Void> authenticated =
+                configuration.getBoolean(CERBERUS_AUTH_EAGER_PROPERTY, false)
+                        ? CompletableFuture.completedFuture(null)
+                        : CerberusConnectionWarmer.authenticate(provider);
+        CerberusConnectionWarmer.await(
+                CompletableFuture.allOf(connected, authenticated),
+                configuration.getLong(
+                        CERBERUS_HTTP_PREWARM_TIMEOUT_PROPERTY, DEFAULT_PREWARM_TIMEOUT_MILLIS),
+                TimeUnit.MILLISECONDS);
+
+        return CerberusClientFactory.getClient(url, provider, defaultHeaders, httpClient);
+    }
+
+    /**
+     * Returns whether the client needs the HTTP client built by {@link
+     * #newHttpClient(AbstractConfiguration)}, which is the case unless transfer stats are disabled
+     * and no other {@value #CERBERUS_HTTP_PROPERTY_PREFIX}.* property is set.
+     *
+     * @param configuration Configuration holding the properties
+     * @return true if the Cerberus client's own HTTP client does not do
+     */
+    static boolean needsHttpClient(final AbstractConfiguration configuration) {
+        if (configuration.getBoolean(CERBERUS_HTTP_TRANSFER_STATS_PROPERTY, true)) {
+            return true;
+        }
+        final Iterator<String> keys = configuration.getKeys(CERBERUS_HTTP_PROPERTY_PREFIX);
+        while (keys != null && keys.hasNext()) {
+            if (!CERBERUS_HTTP_TRANSFER_STATS_PROPERTY.equals(keys.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the HTTP client described by the {@value #CERBERUS_HTTP_PROPERTY_PREFIX}.* properties,
+     * falling back to the Cerberus client's defaults for the missing ones. Like the Cerberus
+     * client's own HTTP client, it only connects with {@link #TLS_1_2_OR_NEWER}.
+     *
+     * @param configuration Configuration holding the properties
+     * @return HTTP client
+     */
+    static OkHttpClient newHttpClient(final AbstractConfiguration configuration) {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(
+                configuration.getInt(CERBERUS_HTTP_MAX_REQUESTS_PROPERTY, DEFAULT_MAX_REQUESTS));
+        dispatcher.setMaxRequestsPerHost(
+                configuration.getInt(
+                        CERBERUS_HTTP_MAX_REQUESTS_PER_HOST_PROPERTY, DEFAULT_MAX_REQUESTS));
+        final ConnectionPool connectionPool =
+                new ConnectionPool(
+                        configuration.getInt(
+                                CERBERUS_HTTP_MAX_IDLE_CONNECTIONS_PROPERTY,
+                                DEFAULT_MAX_IDLE_CONNECTIONS),
+                        configuration.getLong(
+                                CERBERUS_HTTP_KEEP_ALIVE_PROPERTY, DEFAULT_KEEP_ALIVE_MILLIS),
+                        TimeUnit.MILLISECONDS);
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        if (configuration.getBoolean(CERBERUS_HTTP_TRANSFER_STATS_PROPERTY, true)) {
+            builder.addInterceptor(TRANSFER_STATS.applicationInterceptor())
+                    .addNetworkInterceptor(TRANSFER_STATS.networkInterceptor());
+        }
+        return builder.connectTimeout(
+                        configuration.getLong(
+                                CERBERUS_HTTP_CONNECT_TIMEOUT_PROPERTY,
+                                DEFAULT_HTTP_TIMEOUT_MILLIS),
+                        TimeUnit.MILLISECONDS)
+                .readTimeout(
+                        configuration.getLong(
+                                CERBERUS_HTTP_READ_TIMEOUT_PROPERTY, DEFAULT_HTTP_TIMEOUT_MILLIS),
+                        TimeUnit.MILLISECONDS)
+                .writeTimeout(
+                        configuration.getLong(
+                                CERBERUS_HTTP_WRITE_TIMEOUT_PROPERTY, DEFAULT_HTTP_TIMEOUT_MILLIS),
+                        TimeUnit.MILLISECONDS)
+                .connectionSpecs(Collections.singletonList(TLS_1_2_OR_NEWER))
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .build();
+    }
+
+    /**
+     * Returns the bytes received by every client whose HTTP client was built by this factory.
+     *
+     * @return Transfer statistics shared by the factory-built clients
+     */
+    public static CerberusTransferStats getTransferStats() {
+        return TRANSFER_STATS;
+    }
+
+    private static CerberusCredentialsProvider getCredentialsProvider(
+            final String url,
+            final String region,
+            final CerberusCredentialsProvider provider,
+            final AbstractConfiguration configuration,
+            final CerberusTracer tracer) {
+        final CerberusCredentialsProvider credentialsProvider =
+                configuration.getBoolean(CERBERUS_AUTH_EAGER_PROPERTY, false)
+                        ? getRefreshingCredentialsProvider(url, region, provider, configuration)
+                        : provider;
+        return tracer == null
+                ? credentialsProvider
+                : new TracingCerberusCredentialsProvider(credentialsProvider, tracer);
+    }
+
+    /**
+     * Returns the refreshing provider shared by the clients of the given URL and region with the
+     * same refresh interval and authentication timeout, creating it with the given credentials
+     * chain on first use. Shared providers refresh for as long as the JVM runs: closing one does
+     * nothing, so that one caller cannot stop the refresh of every other client.
+     *
+     * @param url Cerberus URL
+     * @param region AWS region
+     * @param provider Credentials chain used if no provider exists yet
+     * @param configuration Configuration holding the refresh interval and authentication timeout
+     * @return Shared refreshing provider
+     */
+    static RefreshingCerberusCredentialsProvider getRefreshingCredentialsProvider(
+            final String url,
+            final String region,
+            final CerberusCredentialsProvider provider,
+            final AbstractConfiguration configuration) {
+        final long interval =
+                configuration.getLong(
+                        CERBERUS_AUTH_REFRESH_INTERVAL_PROPERTY,
+                        RefreshingCerberusCredentialsProvider.DEFAULT_REFRESH_INTERVAL_SECONDS);
+        final long timeout =
+                configuration.getLong(
+                        CERBERUS_AUTH_TIMEOUT_PROPERTY,
+                        RefreshingCerberusCredentialsProvider.DEFAULT_AUTH_TIMEOUT_MILLIS);
+        return REFRESHING_PROVIDERS.computeIfAbsent(
+                url + '|' + region + '|' + interval + '|' + timeout,
+                key -> new SharedRefreshingCredentialsProvider(provider, interval, timeout));
+    }
+
+    /** Refreshing provider shared by several clients, which none of them can close */
+    private static final class SharedRefreshingCredentialsProvider
+            extends RefreshingCerberusCredentialsProvider {
+
+        private SharedRefreshingCredentialsProvider(
+                final CerberusCredentialsProvider delegate,
+                final long intervalSeconds,
+                final long authTimeoutMillis) {
+            super(
+                    delegate,
+                    intervalSeconds,
+                    TimeUnit.SECONDS,
+                    authTimeoutMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        /** Does nothing, the provider keeps refreshing for the other clients sharing it. */
+        @Override
+        public void close() {}
     }
 }
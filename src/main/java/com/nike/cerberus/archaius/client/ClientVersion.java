@@ -39,31 +39,54 @@ public class ClientVersion {
 
     public static final String UNKNOWN = "unknown";
 
+    private static volatile String version;
+
+    /**
+     * Returns the version of this library. The properties file is read once, through the class
+     * loader of this class, so the lookup works where the thread's context class loader is unset or
+     * cannot see this library, such as in native images or on threads created by native code.
+     *
+     * @return Version, or {@value #UNKNOWN} if it cannot be read
+     */
     public static String getVersion() {
+        String current = version;
+        if (current == null) {
+            current = loadVersion();
+            version = current;
+        }
+        return current;
+    }
 
-        InputStream propsStream = null; // NOPMD
-        try {
-            propsStream =
-                    Thread.currentThread()
-                            .getContextClassLoader()
-                            .getResourceAsStream(CLIENT_VERSION_PROPERTY_FILE);
+    private static String loadVersion() {
+        try (InputStream propsStream = openPropertiesFile()) {
+            if (propsStream == null) {
+                LOGGER.error("Client properties file {} not found", CLIENT_VERSION_PROPERTY_FILE);
+                return UNKNOWN;
+            }
             Properties properties = new Properties();
             properties.load(propsStream);
-            return properties.getProperty(ARCHAIUS_CLIENT_VERSION_PROPERTY);
-        } catch (Exception e) {
+            return properties.getProperty(ARCHAIUS_CLIENT_VERSION_PROPERTY, UNKNOWN);
+        } catch (IOException | RuntimeException e) {
             LOGGER.error("Failed to load client properties file", e);
             return UNKNOWN;
-        } finally {
-            try {
-                if (propsStream != null) {
-                    propsStream.close();
-                }
-            } catch (IOException e) {
-                LOGGER.error("Failed to close input stream", e);
-            }
         }
     }
 
+    private static InputStream openPropertiesFile() {
+        final ClassLoader classLoader = ClientVersion.class.getClassLoader();
+        final InputStream propsStream =
+                classLoader == null
+                        ? null
+                        : classLoader.getResourceAsStream(CLIENT_VERSION_PROPERTY_FILE);
+        if (propsStream != null) {
+            return propsStream;
+        }
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader == null
+                ? null
+                : contextClassLoader.getResourceAsStream(CLIENT_VERSION_PROPERTY_FILE);
+    }
+
     public static String getClientHeaderValue() {
         String version = getVersion();
 
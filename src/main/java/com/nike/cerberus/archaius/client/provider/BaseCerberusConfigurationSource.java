@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017 Nike, Inc.
+ * Copyright (c) 2020 Nike, Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,20 +16,32 @@
 
 package com.nike.cerberus.archaius.client.provider;
 
+import com.netflix.config.ConcurrentMapConfiguration;
 import com.netflix.config.PolledConfigurationSource;
 import com.nike.cerberus.client.CerberusClient;
-import java.util.Arrays;
-import java.util.HashSet;
+import com.nike.cerberus.secrets.CerberusSecretLoader;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import com.nike.cerberus.secrets.FlatSecretLoader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Base class for Cerberus configuration sources. */
-public abstract class BaseCerberusConfigurationSource implements PolledConfigurationSource {
-
-    private final CerberusClient cerberusClient;
-
-    private final Set<String> paths;
+/**
+ * Base class for Cerberus configuration sources.
+ *
+ * <p>Loading, snapshots and typed properties are provided by {@link CerberusSecretSource}; this
+ * class adapts them to Archaius 1 by implementing {@link PolledConfigurationSource}.
+ *
+ * <p>When some paths are {@link CerberusSecretSource.PathPriority#CRITICAL critical}, {@code
+ * getConfig()} returns as soon as they are loaded; the other paths are loaded in the background and
+ * the returned configuration is then updated to the full snapshot.
+ */
+public abstract class BaseCerberusConfigurationSource extends CerberusSecretSource
+        implements PolledConfigurationSource {
 
     private static final Logger logger =
             LoggerFactory.getLogger(BaseCerberusConfigurationSource.class);
@@ -42,16 +54,7 @@ public abstract class BaseCerberusConfigurationSource implements PolledConfigura
      * @throws IllegalArgumentException if cerberusClient is null or if paths is null/empty
      */
     public BaseCerberusConfigurationSource(CerberusClient cerberusClient, Set<String> paths) {
-        super();
-        if (cerberusClient == null) {
-            throw new IllegalArgumentException("cerberusClient cannot be null");
-        }
-        if (paths == null || paths.isEmpty()) {
-            throw new IllegalArgumentException("paths cannot be null or empty");
-        }
-        this.cerberusClient = cerberusClient;
-        this.paths = new HashSet<>(paths);
-        logger.info("paths={}", this.paths);
+        this(cerberusClient, new FlatSecretLoader(), paths);
     }
 
     /**
@@ -62,23 +65,79 @@ public abstract class BaseCerberusConfigurationSource implements PolledConfigura
      * @throws IllegalArgumentException if cerberusClient is null or if paths is null/empty
      */
     public BaseCerberusConfigurationSource(CerberusClient cerberusClient, String... paths) {
-        super();
-        if (cerberusClient == null) {
-            throw new IllegalArgumentException("cerberusClient cannot be null");
-        }
-        if (paths == null || paths.length == 0) {
-            throw new IllegalArgumentException("paths cannot be null or empty");
-        }
-        this.cerberusClient = cerberusClient;
-        this.paths = new HashSet<>(Arrays.asList(paths));
-        logger.info("paths={}", this.paths);
+        this(cerberusClient, new FlatSecretLoader(), paths);
     }
 
-    public CerberusClient getCerberusClient() {
-        return cerberusClient;
+    /**
+     * Constructor that accepts the loader and a Set&lt;String&gt; for paths.
+     *
+     * @param cerberusClient Instance of {@link CerberusClient}
+     * @param loader Reads the paths and keys the resulting properties
+     * @param paths Set&lt;String&gt; containing cerberus paths where configuration is stored
+     * @throws IllegalArgumentException if cerberusClient or loader is null or if paths is
+     *     null/empty
+     */
+    protected BaseCerberusConfigurationSource(
+            CerberusClient cerberusClient, CerberusSecretLoader loader, Set<String> paths) {
+        super(cerberusClient, loader, paths);
     }
 
-    public Set<String> getPaths() {
-        return paths;
+    /**
+     * Constructor that accepts the loader and var args for paths.
+     *
+     * @param cerberusClient Instance of {@link CerberusClient}
+     * @param loader Reads the paths and keys the resulting properties
+     * @param paths one or more cerberus paths where configuration is stored
+     * @throws IllegalArgumentException if cerberusClient or loader is null or if paths is
+     *     null/empty
+     */
+    protected BaseCerberusConfigurationSource(
+            CerberusClient cerberusClient, CerberusSecretLoader loader, String... paths) {
+        super(cerberusClient, loader, paths);
+    }
+
+    /**
+     * Loads the source into a new configuration, blocking only on the critical paths if any are
+     * set.
+     *
+     * @return Configuration holding the loaded properties
+     */
+    protected ConcurrentMapConfiguration loadConfig() {
+        if (!hasCriticalPaths() || getCurrentSnapshot() != null) {
+            return new ConcurrentMapConfiguration(refresh().getValues());
+        }
+        final ConcurrentMapConfiguration config =
+                new ConcurrentMapConfiguration(refreshCritical().getValues());
+        refreshInBackground()
+                .thenAccept(snapshot -> apply(config, snapshot.getValues()))
+                .whenComplete(
+                        (applied, failure) -> {
+                            if (failure != null) {
+                                logger.error(
+                                        "Failed to add background paths {} to the configuration",
+                                        getPaths(),
+                                        failure);
+                            }
+                        });
+        return config;
+    }
+
+    /**
+     * Updates a configuration to a full snapshot, clearing the keys the snapshot no longer holds.
+     *
+     * @param config Configuration to update
+     * @param values Values of the snapshot
+     */
+    private static void apply(
+            final ConcurrentMapConfiguration config, final Map<String, Object> values) {
+        final List<String> removed = new ArrayList<>();
+        for (final Iterator<?> keys = config.getKeys(); keys.hasNext(); ) {
+            final String key = (String) keys.next();
+            if (!values.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        removed.forEach(config::clearProperty);
+        values.forEach(config::setProperty);
     }
 }
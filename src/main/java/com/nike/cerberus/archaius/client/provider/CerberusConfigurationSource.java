@@ -20,8 +20,6 @@ import com.netflix.config.ConcurrentMapConfiguration;
 import com.netflix.config.PollResult;
 import com.netflix.config.PolledConfigurationSource;
 import com.nike.cerberus.client.CerberusClient;
-import com.nike.cerberus.client.model.CerberusResponse;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
@@ -62,9 +60,9 @@ public class CerberusConfigurationSource extends BaseCerberusConfigurationSource
     @Override
     public PollResult poll(final boolean initial, final Object checkPoint) {
         logger.debug("poll() initial={}", initial);
-        final Map<String, Object> config = getMap();
+        final Map<String, Object> config = refresh().getValues();
         logger.info("poll() successfully read {} keys from Cerberus", config.size());
-        return PollResult.createFull(getMap());
+        return PollResult.createFull(config);
     }
 
     /**
@@ -73,16 +71,6 @@ public class CerberusConfigurationSource extends BaseCerberusConfigurationSource
      * @return Cerberus config
      */
     public ConcurrentMapConfiguration getConfig() {
-        return new ConcurrentMapConfiguration(getMap());
-    }
-
-    private Map<String, Object> getMap() {
-        final Map<String, Object> config = new HashMap<>();
-        for (final String path : getPaths()) {
-            logger.debug("poll: reading cerberus path '{}'...", path);
-            final CerberusResponse cerberusResponse = getCerberusClient().read(path);
-            config.putAll(cerberusResponse.getData());
-        }
-        return config;
+        return loadConfig();
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import com.netflix.config.AbstractPollingScheduler;
+import com.netflix.config.PolledConfigurationSource;
+import com.nike.cerberus.secrets.CerberusPollingService;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * {@link AbstractPollingScheduler} that polls a Cerberus configuration source on a shared {@link
+ * CerberusPollingService} instead of starting a thread of its own. Use one scheduler per {@code
+ * DynamicConfiguration}; sources sharing a client and interval are refreshed in the same cycle.
+ *
+ * <pre>{@code
+ * DynamicConfiguration config = new DynamicConfiguration(
+ *         source, new CerberusPollingScheduler(pollingService, 1, TimeUnit.HOURS));
+ * }</pre>
+ */
+public class CerberusPollingScheduler extends AbstractPollingScheduler {
+
+    private final CerberusPollingService pollingService;
+
+    private final long interval;
+
+    private final TimeUnit unit;
+
+    private CerberusSecretSource source;
+
+    private CerberusPollingService.Registration registration;
+
+    /**
+     * Constructor
+     *
+     * @param pollingService Service running the polls. May not be null.
+     * @param interval Delay between the end of one poll and the start of the next
+     * @param unit Unit of the interval. May not be null.
+     * @throws IllegalArgumentException if pollingService or unit is null or interval is not
+     *     positive
+     */
+    public CerberusPollingScheduler(
+            final CerberusPollingService pollingService, final long interval, final TimeUnit unit) {
+        super();
+        if (pollingService == null) {
+            throw new IllegalArgumentException("pollingService cannot be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.pollingService = pollingService;
+        this.interval = interval;
+        this.unit = unit;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if source is not a Cerberus configuration source
+     */
+    @Override
+    public synchronized void startPolling(
+            final PolledConfigurationSource source, final Configuration config) {
+        if (!(source instanceof CerberusSecretSource)) {
+            throw new IllegalArgumentException(
+                    "source must be a Cerberus configuration source, was " + source);
+        }
+        this.source = (CerberusSecretSource) source;
+        super.startPolling(source, config);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized void schedule(final Runnable pollingRunnable) {
+        registration = pollingService.register(source, pollingRunnable, interval, unit);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void stop() {
+        if (registration != null) {
+            registration.cancel();
+            registration = null;
+        }
+    }
+}
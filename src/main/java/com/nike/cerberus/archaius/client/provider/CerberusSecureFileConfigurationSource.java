@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import com.netflix.config.ConcurrentMapConfiguration;
+import com.netflix.config.PollResult;
+import com.netflix.config.PolledConfigurationSource;
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.secrets.CerberusSecureFile;
+import com.nike.cerberus.secrets.SecureFileSecretLoader;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link PolledConfigurationSource} that exposes the Cerberus secure files stored
+ * under one or more paths.
+ *
+ * <p>Each file is available as a {@link CerberusSecureFile} keyed by its full Cerberus path (e.g.
+ * app/myApplication/keystore.jks). A poll only lists the files; their content is downloaded lazily
+ * the first time it is accessed and is not downloaded again until the file changes. Files larger
+ * than the configured maximum size are skipped.
+ */
+public class CerberusSecureFileConfigurationSource extends BaseCerberusConfigurationSource {
+
+    /** Default maximum size of a secure file that will be exposed, 1 MiB */
+    public static final long DEFAULT_MAX_FILE_SIZE_BYTES =
+            SecureFileSecretLoader.DEFAULT_MAX_FILE_SIZE_BYTES;
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(CerberusSecureFileConfigurationSource.class);
+
+    private final SecureFileSecretLoader loader;
+
+    /**
+     * Constructor that accepts a Set&lt;String&gt; for paths.
+     *
+     * @param cerberusClient Instance of {@link CerberusClient}
+     * @param paths Set&lt;String&gt; containing cerberus paths where secure files are stored
+     * @throws IllegalArgumentException if cerberusClient is null or if paths is null/empty
+     */
+    public CerberusSecureFileConfigurationSource(
+            final CerberusClient cerberusClient, final Set<String> paths) {
+        this(cerberusClient, new SecureFileSecretLoader(), paths);
+    }
+
+    /**
+     * Constructor that accepts var args for paths.
+     *
+     * @param cerberusClient Instance of {@link CerberusClient}
+     * @param paths one or more cerberus paths where secure files are stored
+     * @throws IllegalArgumentException if cerberusClient is null or if paths is null/empty
+     */
+    public CerberusSecureFileConfigurationSource(
+            final CerberusClient cerberusClient, final String... paths) {
+        this(cerberusClient, new SecureFileSecretLoader(), paths);
+    }
+
+    private CerberusSecureFileConfigurationSource(
+            final CerberusClient cerberusClient,
+            final SecureFileSecretLoader loader,
+            final Set<String> paths) {
+        super(cerberusClient, loader, paths);
+        this.loader = loader;
+    }
+
+    private CerberusSecureFileConfigurationSource(
+            final CerberusClient cerberusClient,
+            final SecureFileSecretLoader loader,
+            final String... paths) {
+        super(cerberusClient, loader, paths);
+        this.loader = loader;
+    }
+
+    /**
+     * Sets the maximum size of a secure file that will be exposed by this source.
+     *
+     * @param maxFileSizeBytes Maximum file size in bytes
+     * @throws IllegalArgumentException if maxFileSizeBytes is not positive
+     */
+    public void setMaxFileSizeBytes(final long maxFileSizeBytes) {
+        loader.setMaxFileSizeBytes(maxFileSizeBytes);
+    }
+
+    public long getMaxFileSizeBytes() {
+        return loader.getMaxFileSizeBytes();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PollResult poll(final boolean initial, final Object checkPoint) {
+        logger.debug("poll() initial={}", initial);
+        final Map<String, Object> config = refresh().getValues();
+        logger.info("poll() successfully listed {} secure files from Cerberus", config.size());
+        return PollResult.createFull(config);
+    }
+
+    /**
+     * Returns the secure files listed in Cerberus, keyed by their full path.
+     *
+     * @return Cerberus secure files
+     */
+    public ConcurrentMapConfiguration getConfig() {
+        return loadConfig();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import com.netflix.config.DynamicConfiguration;
+import com.nike.cerberus.secrets.CerberusSecretSource;
+import com.nike.cerberus.secrets.CerberusSnapshot;
+import com.nike.cerberus.secrets.CerberusSnapshotListener;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-only Archaius 1 configuration backed by a Cerberus secret source.
+ *
+ * <p>Unlike a {@link DynamicConfiguration}, which applies each poll key by key, this configuration
+ * swaps in every snapshot of the source with a single atomic reference update, so readers never see
+ * half of a refresh, such as a new username with the old password. Reads do not lock. Reads that
+ * must agree with each other should go through one {@link #getSnapshot() snapshot}. After each
+ * swap, a set or clear event is fired for every key the refresh changed.
+ *
+ * <pre>{@code
+ * CerberusSnapshotConfiguration cerberusConfig = new CerberusSnapshotConfiguration(
+ *         new NamespacedCerberusConfigurationSource(cerberusClient, "app/demo/"));
+ * cerberusConfig.startPolling(scheduler, 1, TimeUnit.HOURS);
+ * ConfigurationManager.install(cerberusConfig);
+ *
+ * CerberusSnapshot snapshot = cerberusConfig.getSnapshot();
+ * String username = (String) snapshot.get("app.demo.db.username");
+ * String password = (String) snapshot.get("app.demo.db.password");
+ * }</pre>
+ */
+public class CerberusSnapshotConfiguration extends AbstractConfiguration {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(CerberusSnapshotConfiguration.class);
+
+    private final CerberusSecretSource source;
+
+    private final CerberusSnapshotListener listener = this::onSnapshot;
+
+    private final AtomicReference<CerberusSnapshot> current = new AtomicReference<>();
+
+    private ScheduledFuture<?> pollingTask;
+
+    /**
+     * Constructor that loads the source if it has not been refreshed yet. When the source has
+     * critical paths, only those are loaded before returning and the others follow in the
+     * background.
+     *
+     * @param source Cerberus secret source. May not be null.
+     * @throws IllegalArgumentException if source is null
+     */
+    public CerberusSnapshotConfiguration(final CerberusSecretSource source) {
+        super();
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        this.source = source;
+        source.addSnapshotListener(listener);
+        final CerberusSnapshot loaded = source.getCurrentSnapshot();
+        if (loaded != null) {
+            swap(loaded);
+        } else if (source.hasCriticalPaths()) {
+            swap(source.refreshCritical());
+            source.refreshInBackground();
+        } else {
+            swap(source.refresh());
+        }
+    }
+
+    /**
+     * Refreshes the source on the given scheduler at a fixed delay.
+     *
+     * @param scheduler Scheduler running the refreshes
+     * @param interval Delay between the end of one refresh and the start of the next
+     * @param unit Unit of the interval
+     */
+    public synchronized void startPolling(
+            final ScheduledExecutorService scheduler, final long interval, final TimeUnit unit) {
+        if (pollingTask != null) {
+            throw new IllegalStateException("Polling has already been started");
+        }
+        pollingTask = scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, unit);
+    }
+
+    /** Stops polling and detaches this configuration from the source. */
+    public synchronized void stopPolling() {
+        if (pollingTask != null) {
+            pollingTask.cancel(false);
+            pollingTask = null;
+        }
+        source.removeSnapshotListener(listener);
+    }
+
+    public CerberusSecretSource getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the snapshot currently served. Reading several keys from the same snapshot gives
+     * values that were loaded together, whatever refreshes happen in between. Values stored off
+     * heap can no longer be read once the release delay of a superseded snapshot has passed, so do
+     * not keep the handle beyond the reads.
+     *
+     * @return Current snapshot
+     */
+    public CerberusSnapshot getSnapshot() {
+        return current.get();
+    }
+
+    private void refresh() {
+        try {
+            source.refresh();
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh Cerberus configuration, keeping current values", e);
+        }
+    }
+
+    private void onSnapshot(final CerberusSnapshot snapshot) {
+        if (!swap(snapshot)) {
+            return;
+        }
+        for (final String key : snapshot.getChangedKeys()) {
+            final Object value = snapshot.get(key);
+            if (value == null) {
+                fireEvent(EVENT_CLEAR_PROPERTY, key, null, false);
+            } else {
+                fireEvent(EVENT_SET_PROPERTY, key, value, false);
+            }
+        }
+    }
+
+    /**
+     * Serves a snapshot unless a newer one is already served, as listeners may be notified out of
+     * order.
+     *
+     * @return true if the snapshot is now served
+     */
+    private boolean swap(final CerberusSnapshot snapshot) {
+        return current.accumulateAndGet(
+                        snapshot,
+                        (served, next) ->
+                                served == null || next.getVersion() > served.getVersion()
+                                        ? next
+                                        : served)
+                == snapshot;
+    }
+
+    @Override
+    public Object getProperty(final String key) {
+        return current.get().get(key);
+    }
+
+    @Override
+    public boolean containsKey(final String key) {
+        return current.get().getValues().containsKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return current.get().getValues().isEmpty();
+    }
+
+    @Override
+    public Iterator<String> getKeys() {
+        return Collections.unmodifiableSet(current.get().getValues().keySet()).iterator();
+    }
+
+    /**
+     * Not supported, the configuration only changes when the source is refreshed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    protected void addPropertyDirect(final String key, final Object value) {
+        throw new UnsupportedOperationException("Cerberus configuration is read-only");
+    }
+
+    /**
+     * Not supported, the configuration only changes when the source is refreshed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    protected void clearPropertyDirect(final String key) {
+        throw new UnsupportedOperationException("Cerberus configuration is read-only");
+    }
+}
@@ -20,12 +20,11 @@ import com.netflix.config.ConcurrentMapConfiguration;
 import com.netflix.config.PollResult;
 import com.netflix.config.PolledConfigurationSource;
 import com.nike.cerberus.client.CerberusClient;
-import com.nike.cerberus.client.model.CerberusListResponse;
-import com.nike.cerberus.client.model.CerberusResponse;
-import java.util.HashMap;
+import com.nike.cerberus.secrets.CerberusPathFilter;
+import com.nike.cerberus.secrets.NamespacedSecretLoader;
 import java.util.Map;
 import java.util.Set;
-import org.apache.commons.lang3.StringUtils;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +43,8 @@ public class NamespacedCerberusConfigurationSource extends BaseCerberusConfigura
     private static final Logger logger =
             LoggerFactory.getLogger(NamespacedCerberusConfigurationSource.class);
 
+    private final NamespacedSecretLoader loader;
+
     /**
      * Constructor that accepts a Set&lt;String&gt; for paths
      *
@@ -53,7 +54,7 @@ public class NamespacedCerberusConfigurationSource extends BaseCerberusConfigura
      */
     public NamespacedCerberusConfigurationSource(
             final CerberusClient cerberusClient, final Set<String> paths) {
-        super(cerberusClient, paths);
+        this(cerberusClient, new NamespacedSecretLoader(), paths);
     }
 
     /**
@@ -65,90 +66,80 @@ public class NamespacedCerberusConfigurationSource extends BaseCerberusConfigura
      */
     public NamespacedCerberusConfigurationSource(
             final CerberusClient cerberusClient, final String... paths) {
-        super(cerberusClient, paths);
+        this(cerberusClient, new NamespacedSecretLoader(), paths);
     }
 
-    /** {@inheritDoc} */
-    @Override
-    public PollResult poll(final boolean initial, final Object checkPoint) {
-        logger.debug("poll() initial={}", initial);
+    private NamespacedCerberusConfigurationSource(
+            final CerberusClient cerberusClient,
+            final NamespacedSecretLoader loader,
+            final Set<String> paths) {
+        super(cerberusClient, loader, paths);
+        this.loader = loader;
+    }
 
-        final Map<String, Object> config = getMap();
-        return PollResult.createFull(config);
+    private NamespacedCerberusConfigurationSource(
+            final CerberusClient cerberusClient,
+            final NamespacedSecretLoader loader,
+            final String... paths) {
+        super(cerberusClient, loader, paths);
+        this.loader = loader;
     }
 
     /**
-     * Returns config pulled from Cerberus, keyed using the full path to the property.
+     * Sets the filter deciding which folders are listed and which leaves are read. Paths rejected
+     * by the filter are pruned before any request is made for them.
      *
-     * @return Cerberus config
+     * @param pathFilter Path filter. May not be null.
+     * @throws IllegalArgumentException if pathFilter is null
      */
-    public ConcurrentMapConfiguration getConfig() {
-        return new ConcurrentMapConfiguration(getMap());
+    public void setPathFilter(final CerberusPathFilter pathFilter) {
+        loader.setPathFilter(pathFilter);
+    }
+
+    public CerberusPathFilter getPathFilter() {
+        return loader.getPathFilter();
     }
 
     /**
-     * Returns true if a path meets the definition of a folder according to cerberus's convention
-     * (e.g. path ends with a forward slash).
-     *
-     * <p>See https://www.cerberusproject.io/docs/secrets/generic/index.html under the List API
-     * documentation for details as to Cerberus's convention
+     * Caches folder listings for the given interval so that polls in between only read leaves. Zero
+     * (the default) disables interval based caching.
      *
-     * @param path - The cerberus path we are checking to determine if it is a folder or a leaf.
-     * @return A boolean value, true if the path is a folder.
+     * @param interval How long folder listings are reused
+     * @param unit Unit of the interval
+     * @throws IllegalArgumentException if interval is negative
      */
-    private boolean isFolder(final String path) {
-        return StringUtils.endsWith(path, "/");
+    public void setStructureRefreshInterval(final long interval, final TimeUnit unit) {
+        loader.setStructureRefreshInterval(interval, unit);
     }
 
     /**
-     * Given a path, replaces the "/" with "." to match standard property name notation for Java.
+     * Caches folder listings so that folders are only listed again every given number of polls.
+     * Zero (the default) disables poll count based caching. Combined with {@link
+     * #setStructureRefreshInterval(long, TimeUnit)}, the structure is refreshed when either limit
+     * is reached.
      *
-     * <p>Example: shared/foo/bar becomes shared.foo.bar
-     *
-     * @param path Path to do replacement on
-     * @return The modified path
+     * @param polls Number of polls between full structure refreshes
+     * @throws IllegalArgumentException if polls is negative
      */
-    private String getPathPrefix(final String path) {
-        String pathPrefix = StringUtils.replace(path, "/", ".");
+    public void setStructureRefreshPolls(final int polls) {
+        loader.setStructureRefreshPolls(polls);
+    }
 
-        if (!StringUtils.endsWith(pathPrefix, ".")) {
-            pathPrefix += ".";
-        }
+    /** {@inheritDoc} */
+    @Override
+    public PollResult poll(final boolean initial, final Object checkPoint) {
+        logger.debug("poll() initial={}", initial);
 
-        return pathPrefix;
+        final Map<String, Object> config = refresh().getValues();
+        return PollResult.createFull(config);
     }
 
     /**
-     * Traverses the cerberus path from the provided path down through it's leaves. Places all
-     * properties into the map that will be used to populate the Archaius configuration.
+     * Returns config pulled from Cerberus, keyed using the full path to the property.
      *
-     * @param path - The parent path, all properties under this path will be populated.
-     * @return - A map containing all the properties contained under the parent path.
+     * @return Cerberus config
      */
-    private Map<String, Object> buildEntriesMap(final String path) {
-        final Map<String, Object> config = new HashMap<>();
-        if (isFolder(path)) {
-            final CerberusListResponse listResponse = getCerberusClient().list(path);
-            for (final String subpath : listResponse.getKeys()) {
-                final String fullPath = path + subpath;
-                config.putAll(buildEntriesMap(fullPath));
-            }
-        } else {
-            final CerberusResponse cerberusResponse = getCerberusClient().read(path);
-            final Map<String, String> dataFromCerberus = cerberusResponse.getData();
-            for (final Map.Entry<String, String> pair : dataFromCerberus.entrySet()) {
-                config.put(getPathPrefix(path) + pair.getKey(), pair.getValue());
-            }
-        }
-        return config;
-    }
-
-    private Map<String, Object> getMap() {
-        final Map<String, Object> config = new HashMap<>();
-        for (final String path : getPaths()) {
-            logger.debug("poll: reading cerberus path '{}'...", path);
-            config.putAll(buildEntriesMap(path));
-        }
-        return config;
+    public ConcurrentMapConfiguration getConfig() {
+        return loadConfig();
     }
 }
@@ -18,11 +18,29 @@ package com.nike.cerberus.archaius.client;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import cerberus.okhttp3.ConnectionSpec;
 import cerberus.okhttp3.HttpUrl;
+import cerberus.okhttp3.OkHttpClient;
+import cerberus.okhttp3.Request;
+import cerberus.okhttp3.Response;
+import cerberus.okhttp3.TlsVersion;
+import com.netflix.config.ConcurrentMapConfiguration;
 import com.nike.cerberus.client.CerberusClient;
 import com.nike.cerberus.client.CerberusClientException;
+import com.nike.cerberus.client.auth.CerberusCredentialsProvider;
+import com.nike.cerberus.client.auth.TokenCerberusCredentials;
+import com.nike.cerberus.secrets.RefreshingCerberusCredentialsProvider;
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.configuration.AbstractConfiguration;
 import org.junit.Before;
 import org.junit.Test;
@@ -50,6 +68,184 @@ public class ArchaiusCerberusClientFactoryTest {
         assertEquals(expectedUrl, actualUrl);
     }
 
+    @Test
+    public void testGetClientWithPrewarm() {
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_PREWARM_PROPERTY, "true");
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_PREWARM_TIMEOUT_PROPERTY, "100");
+        when(arch.resolveRegion(properties)).thenReturn("us-west-2");
+        when(arch.resolveUrl(properties)).thenReturn("http://foo.bar");
+
+        CerberusClient client = ArchaiusCerberusClientFactory.getClient(arch, properties);
+
+        assertEquals(HttpUrl.parse("http://foo.bar"), client.getCerberusUrl());
+    }
+
+    @Test
+    public void testRefreshingCredentialsProviderIsShared() {
+        CerberusCredentialsProvider chain = mock(CerberusCredentialsProvider.class);
+        when(chain.getCredentials()).thenReturn(new TokenCerberusCredentials("token"));
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+
+        RefreshingCerberusCredentialsProvider first =
+                ArchaiusCerberusClientFactory.getRefreshingCredentialsProvider(
+                        "http://shared.bar", "us-west-2", chain, properties);
+        RefreshingCerberusCredentialsProvider second =
+                ArchaiusCerberusClientFactory.getRefreshingCredentialsProvider(
+                        "http://shared.bar",
+                        "us-west-2",
+                        mock(CerberusCredentialsProvider.class),
+                        properties);
+        RefreshingCerberusCredentialsProvider other =
+                ArchaiusCerberusClientFactory.getRefreshingCredentialsProvider(
+                        "http://shared.bar", "us-east-1", chain, properties);
+
+        assertSame(first, second);
+        assertSame(chain, first.getDelegate());
+        assertNotSame(first, other);
+    }
+
+    @Test
+    public void testRefreshingCredentialsProviderIsSharedPerAuthTimeout() {
+        CerberusCredentialsProvider chain = mock(CerberusCredentialsProvider.class);
+        when(chain.getCredentials()).thenReturn(new TokenCerberusCredentials("token"));
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        ConcurrentMapConfiguration otherTimeout = new ConcurrentMapConfiguration();
+        otherTimeout.setProperty(ArchaiusCerberusClientFactory.CERBERUS_AUTH_TIMEOUT_PROPERTY, "1");
+
+        RefreshingCerberusCredentialsProvider first =
+                ArchaiusCerberusClientFactory.getRefreshingCredentialsProvider(
+                        "http://timeout.bar", "us-west-2", chain, properties);
+        RefreshingCerberusCredentialsProvider other =
+                ArchaiusCerberusClientFactory.getRefreshingCredentialsProvider(
+                        "http://timeout.bar", "us-west-2", chain, otherTimeout);
+
+        assertNotSame(first, other);
+    }
+
+    @Test
+    public void testClosingSharedRefreshingCredentialsProviderKeepsRefreshing() {
+        CerberusCredentialsProvider chain = mock(CerberusCredentialsProvider.class);
+        when(chain.getCredentials()).thenReturn(new TokenCerberusCredentials("token"));
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_AUTH_REFRESH_INTERVAL_PROPERTY, "1");
+
+        RefreshingCerberusCredentialsProvider first =
+                ArchaiusCerberusClientFactory.getRefreshingCredentialsProvider(
+                        "http://closed.bar", "us-west-2", chain, properties);
+        first.close();
+
+        verify(chain, timeout(5000).atLeast(2)).getCredentials();
+    }
+
+    @Test
+    public void testNewHttpClientFromProperties() {
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_CONNECT_TIMEOUT_PROPERTY, "1000");
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_READ_TIMEOUT_PROPERTY, "2000");
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_MAX_REQUESTS_PER_HOST_PROPERTY, "32");
+
+        OkHttpClient httpClient = ArchaiusCerberusClientFactory.newHttpClient(properties);
+
+        assertEquals(1000, httpClient.connectTimeoutMillis());
+        assertEquals(2000, httpClient.readTimeoutMillis());
+        assertEquals(
+                ArchaiusCerberusClientFactory.DEFAULT_HTTP_TIMEOUT_MILLIS,
+                httpClient.writeTimeoutMillis());
+        assertEquals(32, httpClient.dispatcher().getMaxRequestsPerHost());
+        assertEquals(
+                ArchaiusCerberusClientFactory.DEFAULT_MAX_REQUESTS,
+                httpClient.dispatcher().getMaxRequests());
+    }
+
+    @Test
+    public void testTransferStatsAreCountedWithoutHttpProperties() throws Exception {
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        assertTrue(ArchaiusCerberusClientFactory.needsHttpClient(properties));
+
+        byte[] body = "{\"data\":{\"foo\":\"bar\"}}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server =
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(
+                "/",
+                exchange -> {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                });
+        server.start();
+        try {
+            // the local server speaks plain HTTP, the interceptors are kept by newBuilder()
+            OkHttpClient httpClient =
+                    ArchaiusCerberusClientFactory.newHttpClient(properties)
+                            .newBuilder()
+                            .connectionSpecs(Collections.singletonList(ConnectionSpec.CLEARTEXT))
+                            .build();
+            long before = ArchaiusCerberusClientFactory.getTransferStats().getUncompressedBytes();
+            Request request =
+                    new Request.Builder()
+                            .url("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+                            .build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                response.body().string();
+            }
+
+            assertEquals(
+                    before + body.length,
+                    ArchaiusCerberusClientFactory.getTransferStats().getUncompressedBytes());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testNoHttpClientWhenTransferStatsAreDisabled() {
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_TRANSFER_STATS_PROPERTY, "false");
+        assertFalse(ArchaiusCerberusClientFactory.needsHttpClient(properties));
+
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_READ_TIMEOUT_PROPERTY, "2000");
+        assertTrue(ArchaiusCerberusClientFactory.needsHttpClient(properties));
+    }
+
+    @Test
+    public void testNewHttpClientOnlyAllowsTls12OrNewer() {
+        OkHttpClient httpClient =
+                ArchaiusCerberusClientFactory.newHttpClient(new ConcurrentMapConfiguration());
+
+        assertEquals(
+                Collections.singletonList(ArchaiusCerberusClientFactory.TLS_1_2_OR_NEWER),
+                httpClient.connectionSpecs());
+        List<TlsVersion> tlsVersions = httpClient.connectionSpecs().get(0).tlsVersions();
+        assertTrue(tlsVersions.contains(TlsVersion.TLS_1_2));
+        assertFalse(tlsVersions.contains(TlsVersion.TLS_1_1));
+        assertFalse(tlsVersions.contains(TlsVersion.TLS_1_0));
+    }
+
+    @Test
+    public void testGetClientWithHttpProperties() {
+        ConcurrentMapConfiguration properties = new ConcurrentMapConfiguration();
+        properties.setProperty(
+                ArchaiusCerberusUrlResolver.CERBERUS_ADDR_SYS_PROPERTY, "http://foo.bar");
+        properties.setProperty(
+                ArchaiusCerberusUrlResolver.CERBERUS_REGION_SYS_PROPERTY, "us-west-2");
+        properties.setProperty(
+                ArchaiusCerberusClientFactory.CERBERUS_HTTP_MAX_REQUESTS_PROPERTY, "8");
+
+        CerberusClient client = ArchaiusCerberusClientFactory.getClient(null, properties);
+
+        assertEquals(HttpUrl.parse("http://foo.bar"), client.getCerberusUrl());
+    }
+
     @Test(expected = CerberusClientException.class)
     public void testNullGetClient() {
         CerberusClient client = null;
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.netflix.config.ConcurrentMapConfiguration;
+import com.nike.cerberus.archaius.client.provider.CerberusConfigurationSource;
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Checks what native images and AppCDS archives rely on: the shipped native-image configuration
+ * matches the classpath, and startup needs neither the context class loader nor classpath scans.
+ */
+public class NativeImageStartupTest {
+
+    private static final String CONFIG_DIRECTORY = "META-INF/native-image/com.nike/";
+
+    @Test
+    public void reflection_configuration_references_existing_classes() throws Exception {
+        final List<String> names =
+                extract(
+                        read("cerberus-secrets-core/reflect-config.json"),
+                        "\"name\": \"([^\"]+)\"");
+
+        assertThat(names).isNotEmpty();
+        for (final String name : names) {
+            Class.forName(name, false, getClass().getClassLoader());
+        }
+    }
+
+    @Test
+    public void resource_configuration_references_existing_resources() throws Exception {
+        final List<String> resources =
+                extract(
+                        read("cerberus-archaius-client/resource-config.json"),
+                        "\\\\\\\\Q(.+?)\\\\\\\\E");
+
+        assertThat(resources).contains(ClientVersion.CLIENT_VERSION_PROPERTY_FILE);
+        for (final String resource : resources) {
+            assertThat(getClass().getClassLoader().getResource(resource)).isNotNull();
+        }
+    }
+
+    @Test
+    public void factory_and_source_load_without_context_class_loader() throws Exception {
+        final CerberusClient cerberusClient = mock(CerberusClient.class);
+        when(cerberusClient.read("app/demo/config"))
+                .thenReturn(
+                        new CerberusResponse().setData(Collections.singletonMap("poolSize", "10")));
+        final ConcurrentMapConfiguration configuration = new ConcurrentMapConfiguration();
+        configuration.setProperty(
+                ArchaiusCerberusUrlResolver.CERBERUS_ADDR_SYS_PROPERTY, "https://cerberus.example");
+        configuration.setProperty(
+                ArchaiusCerberusUrlResolver.CERBERUS_REGION_SYS_PROPERTY, "us-west-2");
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(null);
+        try {
+            assertThat(ClientVersion.getVersion()).isNotEqualTo(ClientVersion.UNKNOWN);
+            assertThat(ArchaiusCerberusClientFactory.getClient(null, configuration)).isNotNull();
+
+            final CerberusConfigurationSource source =
+                    new CerberusConfigurationSource(cerberusClient, "app/demo/config");
+
+            assertThat(source.getConfig().getString("poolSize")).isEqualTo("10");
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private String read(final String file) throws Exception {
+        final URL url = getClass().getClassLoader().getResource(CONFIG_DIRECTORY + file);
+        assertThat(url).isNotNull();
+        try (InputStream in = url.openStream();
+                Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    private static List<String> extract(final String json, final String regex) {
+        final List<String> values = new ArrayList<>();
+        final Matcher matcher = Pattern.compile(regex).matcher(json);
+        while (matcher.find()) {
+            values.add(matcher.group(1));
+        }
+        return values;
+    }
+}
@@ -24,7 +24,10 @@ import com.netflix.config.PollResult;
 import com.nike.cerberus.client.CerberusClient;
 import com.nike.cerberus.client.CerberusServerException;
 import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.secrets.CerberusSecretSource;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.configuration.AbstractConfiguration;
 import org.junit.Before;
 import org.junit.Test;
@@ -102,6 +105,73 @@ public class CerberusConfigurationSourceTest {
         subject.poll(true, null);
     }
 
+    @Test
+    public void get_config_blocks_only_on_critical_paths() throws Exception {
+        final CountDownLatch released = new CountDownLatch(1);
+        when(cerberusClient.read(PATH_1))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(
+                                        Collections.singletonMap(
+                                                FOOBINATOR_CONFIG_KEY, FOOBINATOR_CONFIG_VALUE)));
+        when(cerberusClient.read(PATH_2))
+                .thenAnswer(
+                        invocation -> {
+                            released.await(5, TimeUnit.SECONDS);
+                            return new CerberusResponse()
+                                    .setData(
+                                            Collections.singletonMap(
+                                                    ARTEMIS_CONFIG_KEY, ARTEMIS_CONFIG_VALUE));
+                        });
+        subject.setPathPriority("app/", CerberusSecretSource.PathPriority.CRITICAL);
+
+        final AbstractConfiguration config = subject.getConfig();
+
+        assertThat(config.getString(FOOBINATOR_CONFIG_KEY)).isEqualTo(FOOBINATOR_CONFIG_VALUE);
+        assertThat(config.containsKey(ARTEMIS_CONFIG_KEY)).isFalse();
+
+        released.countDown();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!config.containsKey(ARTEMIS_CONFIG_KEY) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(config.getString(ARTEMIS_CONFIG_KEY)).isEqualTo(ARTEMIS_CONFIG_VALUE);
+        assertThat(config.getString(FOOBINATOR_CONFIG_KEY)).isEqualTo(FOOBINATOR_CONFIG_VALUE);
+    }
+
+    @Test
+    public void background_load_replaces_the_critical_configuration() throws Exception {
+        final Map<String, String> critical = new HashMap<>();
+        critical.put(FOOBINATOR_CONFIG_KEY, FOOBINATOR_CONFIG_VALUE);
+        critical.put("removed", "value");
+        when(cerberusClient.read(PATH_1))
+                .thenReturn(new CerberusResponse().setData(critical))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(
+                                        Collections.singletonMap(
+                                                FOOBINATOR_CONFIG_KEY, FOOBINATOR_CONFIG_VALUE)));
+        when(cerberusClient.read(PATH_2))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(
+                                        Collections.singletonMap(
+                                                ARTEMIS_CONFIG_KEY, ARTEMIS_CONFIG_VALUE)));
+        subject.setPathPriority("app/", CerberusSecretSource.PathPriority.CRITICAL);
+
+        final AbstractConfiguration config = subject.getConfig();
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (config.containsKey("removed") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(config.containsKey("removed")).isFalse();
+        assertThat(config.getString(ARTEMIS_CONFIG_KEY)).isEqualTo(ARTEMIS_CONFIG_VALUE);
+        assertThat(config.getString(FOOBINATOR_CONFIG_KEY)).isEqualTo(FOOBINATOR_CONFIG_VALUE);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void test_constructor_validation_cerberus_client_cannot_be_null() {
         new CerberusConfigurationSource(
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.netflix.config.DynamicConfiguration;
+import com.netflix.config.PolledConfigurationSource;
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.secrets.CerberusPollingService;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusPollingScheduler */
+public class CerberusPollingSchedulerTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private CerberusClient cerberusClient;
+
+    private CerberusPollingService pollingService;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        pollingService = new CerberusPollingService(1);
+        when(cerberusClient.read(PATH))
+                .thenReturn(
+                        new CerberusResponse()
+                                .setData(Collections.singletonMap("jdbcPassword", "password123")));
+    }
+
+    @After
+    public void tearDown() {
+        pollingService.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_polling_service() {
+        new CerberusPollingScheduler(null, 1, TimeUnit.HOURS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void start_polling_rejects_other_sources() {
+        new CerberusPollingScheduler(pollingService, 1, TimeUnit.HOURS)
+                .startPolling(mock(PolledConfigurationSource.class), null);
+    }
+
+    @Test
+    public void dynamic_configuration_is_loaded_and_registered() {
+        final CerberusConfigurationSource source =
+                new CerberusConfigurationSource(cerberusClient, PATH);
+        final CerberusPollingScheduler scheduler =
+                new CerberusPollingScheduler(pollingService, 1, TimeUnit.HOURS);
+
+        final DynamicConfiguration config = new DynamicConfiguration(source, scheduler);
+
+        assertThat(config.getString("jdbcPassword")).isEqualTo("password123");
+        assertThat(pollingService.getInterval(source, TimeUnit.HOURS)).isEqualTo(1L);
+
+        scheduler.stop();
+
+        assertThat(pollingService.getInterval(source, TimeUnit.HOURS)).isEqualTo(-1L);
+    }
+}
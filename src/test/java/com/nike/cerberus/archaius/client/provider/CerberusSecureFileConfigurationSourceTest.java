@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.config.PollResult;
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusListFilesResponse;
+import com.nike.cerberus.client.model.SecureFileSummary;
+import com.nike.cerberus.secrets.CerberusSecureFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusSecureFileConfigurationSource */
+public class CerberusSecureFileConfigurationSourceTest {
+
+    private static final String PATH = "app/foobinator/";
+
+    private static final String KEYSTORE_PATH = "app/foobinator/keystore.jks";
+
+    private static final String LARGE_FILE_PATH = "app/foobinator/archive.zip";
+
+    private static final byte[] KEYSTORE_CONTENT = "keystore".getBytes(StandardCharsets.UTF_8);
+
+    private CerberusClient cerberusClient;
+
+    private CerberusSecureFileConfigurationSource subject;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        subject = new CerberusSecureFileConfigurationSource(cerberusClient, PATH);
+        subject.setMaxFileSizeBytes(1024);
+
+        final SecureFileSummary keystore = summary("foobinator/keystore.jks", 8);
+        final SecureFileSummary largeFile = summary("foobinator/archive.zip", 4096);
+        final CerberusListFilesResponse listResponse = mock(CerberusListFilesResponse.class);
+        when(listResponse.getSecureFileSummaries()).thenReturn(Arrays.asList(keystore, largeFile));
+        when(cerberusClient.listFiles(PATH)).thenReturn(listResponse);
+        when(cerberusClient.readFileAsBytes(KEYSTORE_PATH)).thenReturn(KEYSTORE_CONTENT);
+    }
+
+    @Test
+    public void poll_lists_files_without_downloading_them() {
+        PollResult result = subject.poll(true, null);
+
+        assertThat(result.getComplete()).containsOnlyKeys(KEYSTORE_PATH);
+        verify(cerberusClient, never()).readFileAsBytes(KEYSTORE_PATH);
+        verify(cerberusClient, never()).readFileAsBytes(LARGE_FILE_PATH);
+    }
+
+    @Test
+    public void file_content_is_downloaded_once_across_polls() {
+        final CerberusSecureFile first = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+        assertThat(first.getBytes()).isEqualTo(KEYSTORE_CONTENT);
+
+        final CerberusSecureFile second = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+        assertThat(second).isSameAs(first);
+        assertThat(second.getBytes()).isEqualTo(KEYSTORE_CONTENT);
+
+        verify(cerberusClient, times(1)).readFileAsBytes(KEYSTORE_PATH);
+    }
+
+    @Test
+    public void file_can_be_written_to_temp_file() throws Exception {
+        final CerberusSecureFile file = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+
+        final Path tempFile = file.toTempFile();
+
+        assertThat(Files.readAllBytes(tempFile)).isEqualTo(KEYSTORE_CONTENT);
+        assertThat(file.getBytes()).isEqualTo(KEYSTORE_CONTENT);
+        verify(cerberusClient, times(1)).readFileAsBytes(KEYSTORE_PATH);
+        Files.delete(tempFile);
+    }
+
+    @Test
+    public void temp_file_is_owner_only() throws Exception {
+        final CerberusSecureFile file = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+
+        final Path tempFile = file.toTempFile();
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tempFile)))
+                .isEqualTo("rw-------");
+        assertThat(
+                        PosixFilePermissions.toString(
+                                Files.getPosixFilePermissions(tempFile.getParent())))
+                .isEqualTo("rwx------");
+    }
+
+    @Test
+    public void temp_file_is_kept_while_the_file_is_unchanged() {
+        final CerberusSecureFile file = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+        final Path tempFile = file.toTempFile();
+
+        subject.refresh();
+
+        assertThat(Files.exists(tempFile)).isTrue();
+    }
+
+    @Test
+    public void superseded_temp_file_is_deleted() {
+        subject.setReleaseDelay(0, TimeUnit.MILLISECONDS);
+        final CerberusSecureFile file = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+        final Path tempFile = file.toTempFile();
+        final SecureFileSummary changed = summary("foobinator/keystore.jks", 9);
+        final CerberusListFilesResponse listResponse = mock(CerberusListFilesResponse.class);
+        when(listResponse.getSecureFileSummaries()).thenReturn(Arrays.asList(changed));
+        when(cerberusClient.listFiles(PATH)).thenReturn(listResponse);
+
+        final CerberusSecureFile next = (CerberusSecureFile) subject.refresh().get(KEYSTORE_PATH);
+
+        assertThat(next).isNotSameAs(file);
+        assertThat(Files.exists(tempFile)).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void max_file_size_must_be_positive() {
+        subject.setMaxFileSizeBytes(0);
+    }
+
+    private SecureFileSummary summary(String path, int size) {
+        final SecureFileSummary summary = mock(SecureFileSummary.class);
+        when(summary.getPath()).thenReturn(path);
+        when(summary.getSizeInBytes()).thenReturn(size);
+        return summary;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.archaius.client.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nike.cerberus.client.CerberusClient;
+import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.secrets.CerberusSnapshot;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test class for CerberusSnapshotConfiguration */
+public class CerberusSnapshotConfigurationTest {
+
+    private static final String PATH = "app/foobinator/config";
+
+    private CerberusClient cerberusClient;
+
+    private CerberusConfigurationSource source;
+
+    @Before
+    public void setup() {
+        cerberusClient = mock(CerberusClient.class);
+        source = new CerberusConfigurationSource(cerberusClient, PATH);
+    }
+
+    @Test
+    public void constructor_loads_the_source() {
+        respond("user1", "password1", "legacy");
+
+        final CerberusSnapshotConfiguration subject = new CerberusSnapshotConfiguration(source);
+
+        assertThat(subject.getString("username")).isEqualTo("user1");
+        assertThat(subject.getString("password")).isEqualTo("password1");
+        assertThat(subject.containsKey("legacy")).isTrue();
+        assertThat(subject.isEmpty()).isFalse();
+        final List<String> keys = new ArrayList<>();
+        subject.getKeys().forEachRemaining(keys::add);
+        assertThat(keys).containsOnly("username", "password", "legacy");
+    }
+
+    @Test
+    public void refresh_swaps_the_whole_snapshot() {
+        respond("user1", "password1", "legacy");
+        final CerberusSnapshotConfiguration subject = new CerberusSnapshotConfiguration(source);
+        final CerberusSnapshot before = subject.getSnapshot();
+
+        respond("user2", "password2", null);
+        source.refresh();
+
+        final CerberusSnapshot after = subject.getSnapshot();
+        assertThat(before.get("username")).isEqualTo("user1");
+        assertThat(before.get("password")).isEqualTo("password1");
+        assertThat(after.get("username")).isEqualTo("user2");
+        assertThat(after.get("password")).isEqualTo("password2");
+        assertThat(subject.getString("password")).isEqualTo("password2");
+        assertThat(subject.containsKey("legacy")).isFalse();
+    }
+
+    @Test
+    public void refresh_fires_an_event_per_changed_key() {
+        respond("user1", "password1", "legacy");
+        final CerberusSnapshotConfiguration subject = new CerberusSnapshotConfiguration(source);
+        final List<ConfigurationEvent> events = new ArrayList<>();
+        subject.addConfigurationListener(events::add);
+
+        respond("user1", "password2", null);
+        source.refresh();
+
+        assertThat(events)
+                .extracting("type", "propertyName", "propertyValue")
+                .containsOnly(
+                        tuple(AbstractConfiguration.EVENT_SET_PROPERTY, "password", "password2"),
+                        tuple(AbstractConfiguration.EVENT_CLEAR_PROPERTY, "legacy", null));
+    }
+
+    @Test
+    public void stopped_configuration_keeps_its_snapshot() {
+        respond("user1", "password1", null);
+        final CerberusSnapshotConfiguration subject = new CerberusSnapshotConfiguration(source);
+        subject.stopPolling();
+
+        respond("user2", "password2", null);
+        source.refresh();
+
+        assertThat(subject.getString("username")).isEqualTo("user1");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void configuration_is_read_only() {
+        respond("user1", "password1", null);
+
+        new CerberusSnapshotConfiguration(source).setProperty("username", "user2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_constructor_with_null_source() {
+        new CerberusSnapshotConfiguration(null);
+    }
+
+    private void respond(final String username, final String password, final String legacy) {
+        final Map<String, String> data = new HashMap<>();
+        data.put("username", username);
+        data.put("password", password);
+        if (legacy != null) {
+            data.put("legacy", legacy);
+        }
+        when(cerberusClient.read(PATH)).thenReturn(new CerberusResponse().setData(data));
+    }
+}
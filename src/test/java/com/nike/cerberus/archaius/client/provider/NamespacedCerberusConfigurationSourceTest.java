@@ -18,6 +18,9 @@ package com.nike.cerberus.archaius.client.provider;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.netflix.config.ConcurrentMapConfiguration;
@@ -26,9 +29,12 @@ import com.nike.cerberus.client.CerberusClient;
 import com.nike.cerberus.client.CerberusServerException;
 import com.nike.cerberus.client.model.CerberusListResponse;
 import com.nike.cerberus.client.model.CerberusResponse;
+import com.nike.cerberus.secrets.CerberusPathFilter;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -136,4 +142,83 @@ public class NamespacedCerberusConfigurationSourceTest {
         // call the method under test
         PollResult result = subject.poll(true, null);
     }
+
+    @Test
+    public void poll_does_not_list_or_read_excluded_paths() {
+        // mock dependencies
+        final CerberusListResponse path1ListResponse =
+                new CerberusListResponse().setKeys(Arrays.asList(PATH_1_SUBPATH_1, "archive/"));
+        when(cerberusClient.list(PATH_1)).thenReturn(path1ListResponse);
+        final Map<String, String> path1Map = new HashMap<>();
+        path1Map.put(FOOBINATOR_CONFIG_KEY, FOOBINATOR_CONFIG_VALUE);
+        final CerberusResponse path1Response = new CerberusResponse().setData(path1Map);
+        when(cerberusClient.read(PATH_1 + PATH_1_SUBPATH_1)).thenReturn(path1Response);
+
+        subject = new NamespacedCerberusConfigurationSource(cerberusClient, PATH_1, PATH_2);
+        subject.setPathFilter(
+                new CerberusPathFilter(
+                        Collections.<String>emptyList(),
+                        Arrays.asList(PATH_1 + "archive/**", PATH_2 + "**"),
+                        Integer.MAX_VALUE));
+
+        // call the method under test
+        PollResult result = subject.poll(true, null);
+
+        // verify results
+        assertThat(result.getComplete()).containsOnlyKeys(FOOBINATOR_CONFIG_NAMESPACED_KEY);
+        verify(cerberusClient, never()).list(PATH_1 + "archive/");
+        verify(cerberusClient, never()).list(PATH_2);
+    }
+
+    @Test
+    public void structure_cache_lists_folders_every_n_polls() {
+        mockPath2();
+        subject = new NamespacedCerberusConfigurationSource(cerberusClient, PATH_2);
+        subject.setStructureRefreshPolls(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(subject.poll(false, null).getComplete())
+                    .containsOnlyKeys(ARTEMIS_CONFIG_NAMESPACED_KEY);
+        }
+        verify(cerberusClient, times(1)).list(PATH_2);
+        verify(cerberusClient, times(1)).list(PATH_2 + PATH_2_SUBPATH_1);
+        verify(cerberusClient, times(3)).read(PATH_2 + PATH_2_SUBPATH_1 + PATH_2_SUBPATH_2);
+
+        subject.poll(false, null);
+        verify(cerberusClient, times(2)).list(PATH_2);
+    }
+
+    @Test
+    public void structure_cache_is_relisted_when_cached_leaf_is_gone() {
+        mockPath2();
+        subject = new NamespacedCerberusConfigurationSource(cerberusClient, PATH_2);
+        subject.setStructureRefreshInterval(1, TimeUnit.HOURS);
+        subject.poll(true, null);
+
+        // the leaf has been deleted and its folder is now empty
+        when(cerberusClient.read(PATH_2 + PATH_2_SUBPATH_1 + PATH_2_SUBPATH_2))
+                .thenThrow(
+                        new CerberusServerException(404, Collections.singletonList("Not found")));
+        when(cerberusClient.list(PATH_2 + PATH_2_SUBPATH_1))
+                .thenReturn(new CerberusListResponse().setKeys(Collections.<String>emptyList()));
+
+        PollResult result = subject.poll(false, null);
+
+        assertThat(result.getComplete()).isEmpty();
+        verify(cerberusClient, times(2)).list(PATH_2 + PATH_2_SUBPATH_1);
+    }
+
+    private void mockPath2() {
+        final CerberusListResponse path2FirstListResponse =
+                new CerberusListResponse().setKeys(Collections.singletonList(PATH_2_SUBPATH_1));
+        when(cerberusClient.list(PATH_2)).thenReturn(path2FirstListResponse);
+        final CerberusListResponse path2SecondListResponse =
+                new CerberusListResponse().setKeys(Collections.singletonList(PATH_2_SUBPATH_2));
+        when(cerberusClient.list(PATH_2 + PATH_2_SUBPATH_1)).thenReturn(path2SecondListResponse);
+        final Map<String, String> path2Map = new HashMap<>();
+        path2Map.put(ARTEMIS_CONFIG_KEY, ARTEMIS_CONFIG_VALUE);
+        final CerberusResponse path2Response = new CerberusResponse().setData(path2Map);
+        when(cerberusClient.read(PATH_2 + PATH_2_SUBPATH_1 + PATH_2_SUBPATH_2))
+                .thenReturn(path2Response);
+    }
 }